@@ -0,0 +1,55 @@
+package wowo;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic task lists shared by the benchmarks.
+ */
+final class BenchmarkData {
+    private static final String[] WORDS = {
+        "read", "book", "return", "pay", "fine", "camp", "trip", "project", "meeting",
+        "homework", "laundry", "groceries", "call", "mum", "water", "plants", "fair", "report"
+    };
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    private BenchmarkData() {}
+
+    /**
+     * Builds a mix of todos, deadlines and events with names of two to four words.
+     *
+     * @param n number of tasks
+     * @return the tasks, the same for every call with the same {@code n}
+     */
+    static List<Task> tasks(int n) {
+        Random random = new Random(42);
+        List<Task> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            StringBuilder name = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+            int words = 1 + random.nextInt(3);
+            for (int w = 0; w < words; w++) {
+                name.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            LocalDate day = START.plusDays(random.nextInt(730));
+            Task t;
+            switch (i % 3) {
+            case 0:
+                t = new Todo(name.toString());
+                break;
+            case 1:
+                t = new Deadline(name.toString(), day);
+                break;
+            default:
+                t = new Event(name.toString(), day, day.plusDays(random.nextInt(5)));
+                break;
+            }
+            if (random.nextInt(4) == 0) {
+                t.markDone();
+            }
+            out.add(t);
+        }
+        return out;
+    }
+}
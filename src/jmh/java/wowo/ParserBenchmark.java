@@ -0,0 +1,37 @@
+package wowo;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parsing single commands; the cost does not depend on the list size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParserBenchmark {
+    public String deadline = "deadline return book /by 2019-12-02";
+    public String deadlineSlashDate = "deadline return book /by 2/12/2019";
+    public String event = "event project meeting /from 2019-12-02 /to 2019-12-04";
+
+    @Benchmark
+    public Parser.DeadlineParts parseDeadline() throws WowoException {
+        return Parser.parseDeadline(deadline);
+    }
+
+    @Benchmark
+    public Parser.DeadlineParts parseDeadlineSlashDate() throws WowoException {
+        return Parser.parseDeadline(deadlineSlashDate);
+    }
+
+    @Benchmark
+    public Parser.EventParts parseEvent() throws WowoException {
+        return Parser.parseEvent(event);
+    }
+}
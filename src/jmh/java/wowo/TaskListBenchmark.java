@@ -0,0 +1,59 @@
+package wowo;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Search and sort on lists of every backing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskListBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"ARRAY", "TREE", "COMPACT"})
+    public TaskList.Backing backing;
+
+    private List<Task> tasks;
+    private TaskList list;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        tasks = BenchmarkData.tasks(size);
+    }
+
+    /** A fresh list in insertion order, so every sort does the same work. */
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        list = new TaskList(backing);
+        list.loadAll(tasks);
+    }
+
+    @Benchmark
+    public List<Task> findRare() {
+        return list.find("groceries report");
+    }
+
+    @Benchmark
+    public List<Task> findCommon() {
+        return list.find("book");
+    }
+
+    @Benchmark
+    public TaskList sortByDateThenName() {
+        list.sortByDateThenName();
+        return list;
+    }
+}
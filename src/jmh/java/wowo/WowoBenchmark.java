@@ -0,0 +1,67 @@
+package wowo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * End to end GUI replies for read-only commands: dispatch, query and formatting.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WowoBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private Path dir;
+    private Wowo bot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, WowoException {
+        dir = Files.createTempDirectory("wowo-jmh");
+        Storage storage = new Storage(dir.resolve("wowo.txt"));
+        storage.save(BenchmarkData.tasks(size));
+        bot = new Wowo(storage);
+        bot.loadOnStartup();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        bot.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    @Benchmark
+    public String find() {
+        return bot.getResponse("find groceries report");
+    }
+
+    @Benchmark
+    public String dueBetween() {
+        return bot.getResponse("due between 2024-03-01 and 2024-03-03");
+    }
+
+    @Benchmark
+    public String listByDate() {
+        return bot.getResponse("list date");
+    }
+}
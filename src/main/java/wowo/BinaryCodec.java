@@ -0,0 +1,209 @@
+package wowo;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes the compact binary snapshot format. All numbers are big-endian.
+ * <pre>
+ *   header:  magic "WOWB" | u16 version | u16 reserved | i32 record count
+ *   record:  u8 type ('T', 'D' or 'E') | u8 flags (bit 0 = done)
+ *            | i32 due epoch day                    (D only)
+ *            | i32 from epoch day | i32 to epoch day (E only)
+ *            | i32 name length | name as UTF-8
+ * </pre>
+ * Dates are stored as epoch days, so no date text has to be parsed on load.
+ */
+final class BinaryCodec implements Storage.RecordSink {
+    static final int MAGIC = 0x574F5742;
+    static final short VERSION = 1;
+
+    private static final int HEADER_SIZE = 12;
+    /** A todo with an empty name: type, flags and name length. */
+    private static final int MIN_RECORD_BYTES = 6;
+    private static final int FLAG_DONE = 1;
+
+    private final ByteBuffer buf = ByteBuffer.allocateDirect(64 * 1024);
+    /** Turns the text records handed to {@link #writeLine} back into tasks. */
+    private final TaskCodec.RecordReader records = new TaskCodec.RecordReader();
+    private FileChannel out;
+
+    /**
+     * Tells whether a file starts with the binary magic.
+     *
+     * @param file the file to check, which must exist
+     * @return true if it is a binary snapshot
+     * @throws IOException if the file cannot be read
+     */
+    static boolean isBinary(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4);
+            while (head.hasRemaining() && ch.read(head) >= 0) {
+                // keep reading
+            }
+            return head.position() == 4 && head.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Reads all tasks from a binary snapshot.
+     *
+     * @param file the snapshot
+     * @return the tasks in file order
+     * @throws IOException if the file cannot be read
+     * @throws WowoException if the file is not a valid snapshot
+     */
+    static List<Task> read(Path file) throws IOException, WowoException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Data file too large: " + size + " bytes");
+            }
+            ByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return decode(in);
+        }
+    }
+
+    private static List<Task> decode(ByteBuffer in) throws WowoException {
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new WowoException("Not a binary data file");
+            }
+            short version = in.getShort();
+            if (version != VERSION) {
+                throw new WowoException("Unsupported binary data file version: " + version);
+            }
+            in.getShort();
+            int count = in.getInt();
+            // The count is read from the file, so it is checked before anything is sized by it
+            if (count < 0 || count > in.remaining() / MIN_RECORD_BYTES) {
+                throw new WowoException("Corrupted binary data file: header claims " + count
+                        + " records in " + in.remaining() + " bytes");
+            }
+            List<Task> out = new ArrayList<>(count);
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < count; i++) {
+                byte type = in.get();
+                byte flags = in.get();
+                Task t;
+                switch (type) {
+                case 'T':
+                    t = new Todo(name(in, scratch));
+                    break;
+                case 'D': {
+                    LocalDate due = LocalDate.ofEpochDay(in.getInt());
+                    t = new Deadline(name(in, scratch), due);
+                    break;
+                }
+                case 'E': {
+                    LocalDate from = LocalDate.ofEpochDay(in.getInt());
+                    LocalDate to = LocalDate.ofEpochDay(in.getInt());
+                    t = new Event(name(in, scratch), from, to);
+                    break;
+                }
+                default:
+                    throw new WowoException("Corrupted binary data file: unknown record type " + type);
+                }
+                if ((flags & FLAG_DONE) != 0) {
+                    t.markDone();
+                }
+                out.add(t);
+            }
+            return out;
+        } catch (BufferUnderflowException e) {
+            throw new WowoException("Corrupted binary data file: it ends in the middle of a record", e);
+        } catch (RuntimeException e) {
+            // Dates out of range
+            throw new WowoException("Corrupted binary data file: " + e, e);
+        }
+    }
+
+    private static String name(ByteBuffer in, byte[] scratch) throws WowoException {
+        int len = in.getInt();
+        if (len < 0 || len > in.remaining()) {
+            throw new WowoException("Corrupted binary data file: bad name length " + len);
+        }
+        byte[] bytes = len <= scratch.length ? scratch : new byte[len];
+        in.get(bytes, 0, len);
+        return new String(bytes, 0, len, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void begin(FileChannel out, int count) {
+        this.out = out;
+        buf.clear();
+        buf.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(count);
+        assert buf.position() == HEADER_SIZE;
+    }
+
+    @Override
+    public void writeTask(Task t) throws IOException {
+        byte[] name = t.getName().getBytes(StandardCharsets.UTF_8);
+        ensure(2 + 8 + 4 + name.length);
+        buf.put((byte) t.getType().charAt(0)).put((byte) (t.isDone() ? FLAG_DONE : 0));
+        if (t instanceof Deadline d) {
+            buf.putInt(epochDay(d.getDue()));
+        } else if (t instanceof Event e) {
+            buf.putInt(epochDay(e.getFrom())).putInt(epochDay(e.getTo()));
+        }
+        buf.putInt(name.length);
+        if (name.length <= buf.remaining()) {
+            buf.put(name);
+        } else {
+            drain();
+            ByteBuffer big = ByteBuffer.wrap(name);
+            while (big.hasRemaining()) {
+                out.write(big);
+            }
+        }
+    }
+
+    @Override
+    public void writeLine(String line) throws IOException {
+        try {
+            Task t = records.read(line);
+            if (t == null) {
+                throw new IOException("Cannot encode record: " + line);
+            }
+            writeTask(t);
+        } catch (WowoException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        drain();
+        out = null;
+    }
+
+    private static int epochDay(LocalDate date) throws IOException {
+        long day = date.toEpochDay();
+        if (day < Integer.MIN_VALUE || day > Integer.MAX_VALUE) {
+            throw new IOException("Date out of range for the binary format: " + date);
+        }
+        return (int) day;
+    }
+
+    private void ensure(int n) throws IOException {
+        if (buf.remaining() < n) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+}
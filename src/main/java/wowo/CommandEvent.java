@@ -0,0 +1,31 @@
+package wowo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one command, from dispatch to its rendered result.
+ * Off unless a recording enables {@code wowo.Command}.
+ */
+@Name("wowo.Command")
+@Label("Command")
+@Category({"Wowo", "Commands"})
+@Description("A command run from the CLI, the GUI or a batch script")
+@Enabled(false)
+@StackTrace(false)
+final class CommandEvent extends Event {
+    @Label("Command")
+    String command;
+
+    @Label("Task Count")
+    @Description("Tasks in the list after the command")
+    int taskCount;
+
+    @Label("Failed")
+    boolean failed;
+}
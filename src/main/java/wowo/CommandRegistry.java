@@ -0,0 +1,96 @@
+package wowo;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps the first word of a command to its handler, so dispatch is one hash lookup
+ * whichever frontend the command came from.
+ */
+public final class CommandRegistry {
+    /**
+     * Runs one command.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        /**
+         * @param input the whole trimmed command, keyword included
+         * @return what the command did
+         * @throws WowoException if the command is malformed or fails
+         */
+        CommandResult handle(String input) throws WowoException;
+    }
+
+    private final Map<String, Handler> handlers = new HashMap<>();
+    /** Keywords of commands that only read the task list. */
+    private final Set<String> queries = new HashSet<>();
+
+    /**
+     * Registers the handler for a keyword, replacing any earlier one.
+     * @param keyword first word of the command; matched ignoring case
+     * @param handler the handler
+     * @return this registry
+     */
+    public CommandRegistry register(String keyword, Handler handler) {
+        handlers.put(keyword.toLowerCase(), handler);
+        queries.remove(keyword.toLowerCase());
+        return this;
+    }
+
+    /**
+     * Registers the handler for a command that only reads the task list, so it may run
+     * alongside changes to a concurrent list.
+     * @param keyword first word of the command; matched ignoring case
+     * @param handler the handler
+     * @return this registry
+     */
+    public CommandRegistry registerQuery(String keyword, Handler handler) {
+        register(keyword, handler);
+        queries.add(keyword.toLowerCase());
+        return this;
+    }
+
+    /**
+     * Tells whether a command was registered as a query.
+     * @param input the trimmed command
+     * @return true if its handler only reads the task list
+     */
+    public boolean isQuery(String input) {
+        return queries.contains(keyword(input));
+    }
+
+    /**
+     * Dispatches a command on its first word.
+     * @param input the trimmed, non-empty command
+     * @return what the command did
+     * @throws WowoException if no handler matches or the handler fails
+     */
+    public CommandResult execute(String input) throws WowoException {
+        Handler h = handlers.get(keyword(input));
+        if (h == null) {
+            throw new UnknownCommandException();
+        }
+        return h.handle(input);
+    }
+
+    /**
+     * Names the command an input would run, for grouping statistics.
+     * @param input the trimmed command
+     * @return the registered keyword, or {@code "unknown"}
+     */
+    public String commandName(String input) {
+        String k = keyword(input);
+        return handlers.containsKey(k) ? k : "unknown";
+    }
+
+    /** The first word of the input, lower-cased. */
+    static String keyword(String input) {
+        int end = 0;
+        while (end < input.length() && !Character.isWhitespace(input.charAt(end))) {
+            end++;
+        }
+        return input.substring(0, end).toLowerCase();
+    }
+}
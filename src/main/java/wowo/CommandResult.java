@@ -0,0 +1,133 @@
+package wowo;
+
+import java.util.List;
+
+/**
+ * Outcome of one command, rendered by each frontend in its own way.
+ */
+public final class CommandResult {
+    /** What the command did, which decides how the result is shown. */
+    public enum Kind {
+        ADDED, MARKED, UNMARKED, DELETED, LIST, MATCHES, SORTED, INFO, EXIT
+    }
+
+    public final Kind kind;
+    /** The task that was added, marked, unmarked or deleted; null otherwise or for several. */
+    public final Task task;
+    /** The tasks listed, found, sorted, or changed by a command on several; empty otherwise. */
+    public final List<Task> tasks;
+    /** Number of tasks left in the list after the command. */
+    public final int size;
+    /** Events the added task clashes with; empty otherwise. */
+    public final List<Task> clashes;
+    /** Text to show for an info result, or a warning met on exit; null otherwise. */
+    public final String message;
+    /** Tasks before the first one shown, when {@link #tasks} is one page of a longer list. */
+    public final int offset;
+    /** One-based number of the page shown, out of {@link #pages}. */
+    public final int page;
+    public final int pages;
+
+    private CommandResult(Kind kind, Task task, List<Task> tasks, int size,
+            List<Task> clashes, String message) {
+        this(kind, task, tasks, size, clashes, message, 0, 1, 1);
+    }
+
+    private CommandResult(Kind kind, Task task, List<Task> tasks, int size,
+            List<Task> clashes, String message, int offset, int page, int pages) {
+        this.kind = kind;
+        this.task = task;
+        this.tasks = tasks;
+        this.size = size;
+        this.clashes = clashes;
+        this.message = message;
+        this.offset = offset;
+        this.page = page;
+        this.pages = pages;
+    }
+
+    /**
+     * A task was added.
+     * @param task the new task
+     * @param size the number of tasks now in the list
+     * @param clashes events the new task overlaps
+     * @return the result
+     */
+    public static CommandResult added(Task task, int size, List<Task> clashes) {
+        return new CommandResult(Kind.ADDED, task, List.of(), size, clashes, null);
+    }
+
+    /**
+     * A task was marked or unmarked.
+     * @param kind {@link Kind#MARKED} or {@link Kind#UNMARKED}
+     * @param task the changed task
+     * @param size the number of tasks in the list
+     * @return the result
+     */
+    public static CommandResult changed(Kind kind, Task task, int size) {
+        return new CommandResult(kind, task, List.of(), size, List.of(), null);
+    }
+
+    /**
+     * Several tasks were marked, unmarked or deleted by one command.
+     * @param kind {@link Kind#MARKED}, {@link Kind#UNMARKED} or {@link Kind#DELETED}
+     * @param changed the changed tasks
+     * @param size the number of tasks now in the list
+     * @return the result
+     */
+    public static CommandResult changedAll(Kind kind, List<Task> changed, int size) {
+        return new CommandResult(kind, null, changed, size, List.of(), null);
+    }
+
+    /**
+     * A task was deleted.
+     * @param task the removed task
+     * @param size the number of tasks left
+     * @return the result
+     */
+    public static CommandResult deleted(Task task, int size) {
+        return new CommandResult(Kind.DELETED, task, List.of(), size, List.of(), null);
+    }
+
+    /**
+     * Tasks to show: the whole list, search matches or the list after a sort.
+     * @param kind {@link Kind#LIST}, {@link Kind#MATCHES} or {@link Kind#SORTED}
+     * @param tasks the tasks, in the order to show them
+     * @return the result
+     */
+    public static CommandResult shown(Kind kind, List<Task> tasks) {
+        return new CommandResult(kind, null, tasks, tasks.size(), List.of(), null);
+    }
+
+    /**
+     * One page of the list, or of the list after a sort.
+     * @param kind {@link Kind#LIST} or {@link Kind#SORTED}
+     * @param tasks the tasks on the page, in the order to show them
+     * @param offset the number of tasks on earlier pages
+     * @param size the number of tasks on all pages
+     * @param page the one-based page number
+     * @param pages the number of pages
+     * @return the result
+     */
+    public static CommandResult paged(Kind kind, List<Task> tasks, int offset, int size, int page, int pages) {
+        return new CommandResult(kind, null, tasks, size, List.of(), null, offset, page, pages);
+    }
+
+    /**
+     * Plain text for the user, e.g. figures about the list.
+     * @param message the text
+     * @return the result
+     */
+    public static CommandResult info(String message) {
+        return new CommandResult(Kind.INFO, null, List.of(), 0, List.of(), message);
+    }
+
+    /**
+     * The user is leaving.
+     * @param warning a problem met while shutting down, or null
+     * @return the result
+     */
+    public static CommandResult exit(String warning) {
+        return new CommandResult(Kind.EXIT, null, List.of(), 0, List.of(), warning);
+    }
+}
@@ -0,0 +1,140 @@
+package wowo;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency histograms and counts per command, split into the stages of handling a command:
+ * handling (parsing and the task list change), persisting, and rendering the result.
+ * Safe to record from the command thread while another thread reports.
+ */
+final class CommandStats {
+    /** Stage names, in report order. */
+    private static final String[] STAGES = {"handle", "persist", "render", "total"};
+
+    private final Map<String, Entry> byCommand = new ConcurrentHashMap<>();
+    private final LongSupplier bytesWritten;
+    private ScheduledExecutorService dumper;
+    private Path dumpFile;
+
+    /**
+     * @param bytesWritten reads the number of bytes the storage has written so far
+     */
+    CommandStats(LongSupplier bytesWritten) {
+        this.bytesWritten = bytesWritten;
+    }
+
+    /**
+     * Records one command.
+     *
+     * @param command the command keyword, e.g. {@code mark}
+     * @param handleNanos time to parse and apply it, persisting excluded
+     * @param persistNanos time spent persisting
+     * @param renderNanos time to show or format its result
+     * @param failed whether it ended with an error
+     */
+    void record(String command, long handleNanos, long persistNanos, long renderNanos, boolean failed) {
+        Entry e = byCommand.computeIfAbsent(command, k -> new Entry());
+        e.stages[0].record(handleNanos);
+        e.stages[1].record(persistNanos);
+        e.stages[2].record(renderNanos);
+        e.stages[3].record(handleNanos + persistNanos + renderNanos);
+        if (failed) {
+            e.failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * Formats counts and p50/p99/max per command and stage, in microseconds.
+     *
+     * @return the report
+     */
+    String report() {
+        StringBuilder sb = new StringBuilder("Command stats (us: p50 / p99 / max)\n");
+        for (Map.Entry<String, Entry> me : new TreeMap<>(byCommand).entrySet()) {
+            Entry e = me.getValue();
+            sb.append(me.getKey()).append(": ").append(e.stages[3].count()).append(" runs, ")
+                    .append(e.failures.get()).append(" failed\n");
+            for (int s = 0; s < STAGES.length; s++) {
+                LatencyHistogram h = e.stages[s];
+                sb.append("  ").append(STAGES[s]).append(' ')
+                        .append(micros(h.percentile(0.5))).append(" / ")
+                        .append(micros(h.percentile(0.99))).append(" / ")
+                        .append(micros(h.max())).append('\n');
+            }
+        }
+        sb.append("Storage bytes written: ").append(bytesWritten.getAsLong());
+        return sb.toString();
+    }
+
+    /**
+     * Writes the report to a file every {@code periodSeconds} on a daemon thread. The file is
+     * replaced atomically, so a reader never sees half a report.
+     *
+     * @param file where to write the report
+     * @param periodSeconds seconds between dumps
+     */
+    synchronized void dumpPeriodically(Path file, long periodSeconds) {
+        if (dumper != null) {
+            return;
+        }
+        dumpFile = file;
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "wowo-stats");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(file), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /** Stops the periodic dump after writing a last report. */
+    synchronized void stop() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+            dump(dumpFile);
+        }
+    }
+
+    /**
+     * Writes the current report to a file.
+     *
+     * @param file where to write the report
+     */
+    void dump(Path file) {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.writeString(tmp, report() + System.lineSeparator(), StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ignore) {
+            // Stats are best effort; try again on the next period
+        }
+    }
+
+    private static String micros(long nanos) {
+        return Long.toString(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /** Histograms of one command. */
+    private static final class Entry {
+        private final LatencyHistogram[] stages = new LatencyHistogram[STAGES.length];
+        private final AtomicLong failures = new AtomicLong();
+
+        private Entry() {
+            for (int s = 0; s < stages.length; s++) {
+                stages[s] = new LatencyHistogram();
+            }
+        }
+    }
+}
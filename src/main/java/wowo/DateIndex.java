@@ -0,0 +1,108 @@
+package wowo;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Ordered index from epoch day to the tasks carrying that date: the due date of a
+ * {@link Deadline}, and both the start and end date of an {@link Event}.
+ * A range query walks only the days inside the range.
+ */
+final class DateIndex {
+    private final NavigableMap<Long, Set<Task>> byDay = new TreeMap<>();
+
+    /**
+     * Indexes the dates of a task; todos have none.
+     *
+     * @param t the task
+     */
+    void add(Task t) {
+        if (t instanceof Deadline d) {
+            put(d.getDue(), t);
+        } else if (t instanceof Event e) {
+            put(e.getFrom(), t);
+            put(e.getTo(), t);
+        }
+    }
+
+    /**
+     * Removes the dates of a task.
+     *
+     * @param t the task
+     */
+    void remove(Task t) {
+        if (t instanceof Deadline d) {
+            drop(d.getDue(), t);
+        } else if (t instanceof Event e) {
+            drop(e.getFrom(), t);
+            drop(e.getTo(), t);
+        }
+    }
+
+    /**
+     * Re-indexes all tasks.
+     *
+     * @param tasks the tasks
+     */
+    void rebuild(List<Task> tasks) {
+        byDay.clear();
+        for (Task t : tasks) {
+            add(t);
+        }
+    }
+
+    /**
+     * Returns the tasks with a date in {@code [from, to]}, in date order.
+     * A task is listed once even if several of its dates are in range.
+     *
+     * @param from first day, or {@code null} for no lower bound
+     * @param to last day, or {@code null} for no upper bound
+     * @return the matching tasks
+     */
+    List<Task> between(LocalDate from, LocalDate to) {
+        NavigableMap<Long, Set<Task>> range = byDay;
+        if (from != null && to != null) {
+            if (from.isAfter(to)) {
+                return new ArrayList<>();
+            }
+            range = byDay.subMap(from.toEpochDay(), true, to.toEpochDay(), true);
+        } else if (from != null) {
+            range = byDay.tailMap(from.toEpochDay(), true);
+        } else if (to != null) {
+            range = byDay.headMap(to.toEpochDay(), true);
+        }
+
+        List<Task> out = new ArrayList<>();
+        Set<Task> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Set<Task> day : range.values()) {
+            for (Task t : day) {
+                if (seen.add(t)) {
+                    out.add(t);
+                }
+            }
+        }
+        return out;
+    }
+
+    private void put(LocalDate date, Task t) {
+        byDay.computeIfAbsent(date.toEpochDay(), k -> new LinkedHashSet<>()).add(t);
+    }
+
+    private void drop(LocalDate date, Task t) {
+        Long key = date.toEpochDay();
+        Set<Task> day = byDay.get(key);
+        if (day != null) {
+            day.remove(t);
+            if (day.isEmpty()) {
+                byDay.remove(key);
+            }
+        }
+    }
+}
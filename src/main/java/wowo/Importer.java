@@ -0,0 +1,486 @@
+package wowo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads tasks from an iCalendar ({@code .ics}) or CSV file a line at a time, handing them over
+ * in batches so only one batch and the current record are held at once.
+ * <p>iCalendar: each {@code VEVENT} becomes an {@link Event} and each {@code VTODO} a
+ * {@link Deadline} if it has a {@code DUE} date, a {@link Todo} otherwise; {@code STATUS:COMPLETED}
+ * marks it as done. An all-day event's {@code DTEND} is exclusive, so it ends the day before.
+ * <p>CSV: the first row names the columns, in any order: {@code description} (or {@code name},
+ * {@code summary}), and optionally {@code type} ({@code T}, {@code D}, {@code E}), {@code due},
+ * {@code from}, {@code to} and {@code done}. Without a type, a row with a due date is a deadline,
+ * one with a start date an event, and anything else a todo. Dates take the same shapes as commands.
+ */
+final class Importer {
+    /** Tasks handed over at a time. */
+    static final int BATCH_SIZE = 1000;
+    /** Rejected lines described in the report; the rest are only counted. */
+    private static final int MAX_REPORTED = 10;
+    /** Longest record accepted, so a runaway quote cannot fill the heap. */
+    private static final int MAX_RECORD_CHARS = 64 * 1024;
+
+    private final Sink sink;
+    private final int batchSize;
+    private List<Task> batch;
+    private int imported;
+    private int rejected;
+    private final List<String> rejections = new ArrayList<>();
+
+    private Importer(Sink sink, int batchSize) {
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * Imports a file, choosing the format from its extension, or from its first line when
+     * the extension is neither {@code .ics} nor {@code .csv}.
+     *
+     * @param file the file
+     * @param sink takes each batch of tasks, in file order
+     * @return what was imported and rejected
+     * @throws IOException if the file cannot be read
+     * @throws WowoException if the sink fails to take a batch
+     */
+    static Report importFile(Path file, Sink sink) throws IOException, WowoException {
+        long start = System.nanoTime();
+        Importer importer = new Importer(sink, BATCH_SIZE);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            LineReader in = new LineReader(reader);
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            boolean ics = name.endsWith(".ics") || name.endsWith(".ical");
+            if (!ics && !name.endsWith(".csv")) {
+                String first = in.peek();
+                ics = first != null && first.trim().equalsIgnoreCase("BEGIN:VCALENDAR");
+            }
+            if (ics) {
+                importer.readCalendar(in);
+            } else {
+                importer.readCsv(in);
+            }
+        }
+        importer.flush();
+        return new Report(importer.imported, importer.rejected, importer.rejections, System.nanoTime() - start);
+    }
+
+    /** Takes the imported tasks a batch at a time, e.g. to add and commit them. */
+    interface Sink {
+        /**
+         * @param batch the next tasks, in file order
+         * @throws WowoException if the batch cannot be taken; the import stops
+         */
+        void accept(List<Task> batch) throws WowoException;
+    }
+
+    private void accept(Task t) throws WowoException {
+        batch.add(t);
+        if (batch.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    private void flush() throws WowoException {
+        if (!batch.isEmpty()) {
+            imported += batch.size();
+            sink.accept(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    private void reject(int line, String reason) {
+        rejected++;
+        if (rejections.size() < MAX_REPORTED) {
+            rejections.add("line " + line + ": " + reason);
+        }
+    }
+
+    private void readCalendar(LineReader in) throws IOException, WowoException {
+        Map<String, String> props = null;
+        String component = null;
+        int begin = 0;
+        String line;
+        while ((line = in.unfolded()) != null) {
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String key = line.substring(0, colon).toUpperCase(Locale.ROOT);
+            String value = line.substring(colon + 1);
+            if (key.equals("BEGIN") && (value.equalsIgnoreCase("VEVENT") || value.equalsIgnoreCase("VTODO"))) {
+                component = value.toUpperCase(Locale.ROOT);
+                props = new HashMap<>();
+                begin = in.lineNumber();
+            } else if (key.equals("END") && props != null && value.equalsIgnoreCase(component)) {
+                calendarTask(component, props, begin);
+                props = null;
+            } else if (props != null) {
+                // Parameters such as DTSTART;VALUE=DATE or DTSTART;TZID=... are not needed
+                int semi = key.indexOf(';');
+                if (props.size() < 64) {
+                    props.putIfAbsent(semi < 0 ? key : key.substring(0, semi), value);
+                }
+            }
+        }
+        if (props != null) {
+            reject(begin, component + " is not closed");
+        }
+    }
+
+    private void calendarTask(String component, Map<String, String> props, int line) throws WowoException {
+        String summary = props.get("SUMMARY");
+        String name = summary == null ? "" : cleanName(unescape(summary));
+        if (name.isEmpty()) {
+            reject(line, component + " has no SUMMARY");
+            return;
+        }
+        Task t;
+        try {
+            if (component.equals("VEVENT")) {
+                String start = props.get("DTSTART");
+                if (start == null) {
+                    reject(line, "VEVENT has no DTSTART");
+                    return;
+                }
+                LocalDate from = calendarDate(start);
+                LocalDate to = from;
+                String end = props.get("DTEND");
+                if (end != null) {
+                    to = calendarDate(end);
+                    if (isAllDay(start) && isAllDay(end) && to.isAfter(from)) {
+                        to = to.minusDays(1);
+                    }
+                }
+                if (to.isBefore(from)) {
+                    reject(line, "VEVENT ends before it starts");
+                    return;
+                }
+                t = new Event(name, from, to);
+            } else {
+                String due = props.get("DUE");
+                t = due == null ? new Todo(name) : new Deadline(name, calendarDate(due));
+            }
+        } catch (DateTimeException | IllegalArgumentException e) {
+            reject(line, "bad date in " + component);
+            return;
+        }
+        String status = props.get("STATUS");
+        if (status != null && status.trim().equalsIgnoreCase("COMPLETED")) {
+            t.markDone();
+        }
+        accept(t);
+    }
+
+    /** Reads the date of {@code 20191202} or {@code 20191202T090000Z}; the time is dropped. */
+    private static LocalDate calendarDate(String value) {
+        String v = value.trim();
+        if (v.length() < 8) {
+            throw new IllegalArgumentException(v);
+        }
+        for (int i = 0; i < 8; i++) {
+            if (!Character.isDigit(v.charAt(i))) {
+                throw new IllegalArgumentException(v);
+            }
+        }
+        return LocalDate.of(Integer.parseInt(v.substring(0, 4)), Integer.parseInt(v.substring(4, 6)),
+                Integer.parseInt(v.substring(6, 8)));
+    }
+
+    /** A date without a time, as all-day events have. */
+    private static boolean isAllDay(String value) {
+        return value.trim().length() == 8;
+    }
+
+    private static String unescape(String s) {
+        if (s.indexOf('\\') < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char next = s.charAt(++i);
+                sb.append(next == 'n' || next == 'N' ? ' ' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Names are stored on one line between pipes. */
+    private static String cleanName(String s) {
+        return s.replace('|', '/').replace('\r', ' ').replace('\n', ' ').trim();
+    }
+
+    private void readCsv(LineReader in) throws IOException, WowoException {
+        List<String> header = in.csvRecord();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.putIfAbsent(csvColumn(header.get(i)), i);
+        }
+        if (!columns.containsKey("description")) {
+            reject(1, "no description, name or summary column");
+            return;
+        }
+        List<String> row;
+        while ((row = in.csvRecord()) != null) {
+            if (in.problem() != null) {
+                reject(in.lineNumber(), in.problem());
+            } else if (row.size() > 1 || !row.get(0).isBlank()) {
+                csvTask(row, columns, in.lineNumber());
+            }
+        }
+    }
+
+    private static String csvColumn(String name) {
+        String n = name.trim().toLowerCase(Locale.ROOT);
+        switch (n) {
+        case "name":
+        case "summary":
+        case "task":
+            return "description";
+        case "start":
+            return "from";
+        case "end":
+            return "to";
+        case "status":
+            return "done";
+        default:
+            return n;
+        }
+    }
+
+    private void csvTask(List<String> row, Map<String, Integer> columns, int line) throws WowoException {
+        String name = cleanName(field(row, columns, "description"));
+        if (name.isEmpty()) {
+            reject(line, "no description");
+            return;
+        }
+        String type = field(row, columns, "type").toUpperCase(Locale.ROOT);
+        String due = field(row, columns, "due");
+        String from = field(row, columns, "from");
+        String to = field(row, columns, "to");
+        if (type.isEmpty()) {
+            type = !due.isEmpty() ? "D" : !from.isEmpty() ? "E" : "T";
+        }
+        Task t;
+        try {
+            switch (type.substring(0, 1)) {
+            case "T":
+                t = new Todo(name);
+                break;
+            case "D":
+                t = new Deadline(name, Parser.parseUserDate(due));
+                break;
+            case "E":
+                LocalDate start = Parser.parseUserDate(from);
+                LocalDate end = to.isEmpty() ? start : Parser.parseUserDate(to);
+                if (end.isBefore(start)) {
+                    reject(line, "event ends before it starts");
+                    return;
+                }
+                t = new Event(name, start, end);
+                break;
+            default:
+                reject(line, "unknown type " + type);
+                return;
+            }
+        } catch (WowoException e) {
+            reject(line, e.getMessage());
+            return;
+        }
+        String done = field(row, columns, "done").toLowerCase(Locale.ROOT);
+        if (done.equals("1") || done.equals("true") || done.equals("yes") || done.equals("x")
+                || done.equals("done") || done.equals("completed")) {
+            t.markDone();
+        }
+        accept(t);
+    }
+
+    private static String field(List<String> row, Map<String, Integer> columns, String column) {
+        Integer i = columns.get(column);
+        return i == null || i >= row.size() ? "" : row.get(i).trim();
+    }
+
+    /** What an import did. */
+    static final class Report {
+        final int imported;
+        final int rejected;
+        /** The first few rejected lines with the reason. */
+        final List<String> rejections;
+        final long nanos;
+
+        private Report(int imported, int rejected, List<String> rejections, long nanos) {
+            this.imported = imported;
+            this.rejected = rejected;
+            this.rejections = rejections;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = nanos / 1e9;
+            StringBuilder sb = new StringBuilder(String.format("Imported %d tasks in %.2f s (%.0f tasks/s).",
+                    imported, seconds, seconds > 0 ? imported / seconds : 0.0));
+            if (rejected > 0) {
+                sb.append("\nRejected ").append(rejected).append(rejected == 1 ? " entry:" : " entries:");
+                for (String r : rejections) {
+                    sb.append("\n  ").append(r);
+                }
+                if (rejected > rejections.size()) {
+                    sb.append("\n  ...and ").append(rejected - rejections.size()).append(" more");
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    /** Reads physical lines, joining iCalendar folded lines or quoted CSV line breaks. */
+    private static final class LineReader {
+        private final BufferedReader in;
+        private String lookahead;
+        private int read;
+        /** Line number where the last record or unfolded line started. */
+        private int start;
+        /** Why the last CSV record is unusable, or null. */
+        private String problem;
+
+        private LineReader(BufferedReader in) {
+            this.in = in;
+        }
+
+        private String next() throws IOException {
+            if (lookahead != null) {
+                String s = lookahead;
+                lookahead = null;
+                return s;
+            }
+            String s = in.readLine();
+            if (s != null && ++read == 1 && s.startsWith("\uFEFF")) {
+                // Byte order mark, as spreadsheet programs write before a CSV header
+                s = s.substring(1);
+            }
+            return s;
+        }
+
+        /** Returns the next line without consuming it. */
+        String peek() throws IOException {
+            if (lookahead == null) {
+                lookahead = next();
+            }
+            return lookahead;
+        }
+
+        int lineNumber() {
+            return start;
+        }
+
+        String problem() {
+            return problem;
+        }
+
+        /** Returns the next content line with its continuation lines (those starting with a space or tab). */
+        String unfolded() throws IOException {
+            String line = next();
+            if (line == null) {
+                return null;
+            }
+            start = read;
+            StringBuilder sb = null;
+            String cont;
+            while ((cont = next()) != null) {
+                if (cont.isEmpty() || (cont.charAt(0) != ' ' && cont.charAt(0) != '\t')) {
+                    lookahead = cont;
+                    break;
+                }
+                if (sb == null) {
+                    sb = new StringBuilder(line);
+                }
+                if (sb.length() < MAX_RECORD_CHARS) {
+                    sb.append(cont, 1, cont.length());
+                }
+            }
+            return sb == null ? line : sb.toString();
+        }
+
+        /**
+         * Splits the next CSV record into fields; quotes may hold commas, quotes ({@code ""}) and line
+         * breaks. A record with an unclosed quote or longer than {@link #MAX_RECORD_CHARS} sets {@link #problem()}.
+         */
+        List<String> csvRecord() throws IOException {
+            String line = next();
+            if (line == null) {
+                return null;
+            }
+            start = read;
+            problem = null;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int length = 0;
+            while (true) {
+                length += line.length();
+                for (int i = 0; i < line.length(); i++) {
+                    char c = line.charAt(i);
+                    if (quoted) {
+                        if (c != '"') {
+                            field.append(c);
+                        } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else if (c == '"') {
+                        quoted = true;
+                    } else if (c == ',') {
+                        fields.add(field.toString());
+                        field.setLength(0);
+                    } else {
+                        field.append(c);
+                    }
+                }
+                if (!quoted) {
+                    break;
+                }
+                if (length > MAX_RECORD_CHARS) {
+                    problem = "record longer than " + MAX_RECORD_CHARS + " characters";
+                    skipTo('"');
+                    break;
+                }
+                line = next();
+                if (line == null) {
+                    problem = "quote not closed";
+                    break;
+                }
+                field.append(' ');
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        /** Skips lines up to one holding the given character, where an overlong record probably ends. */
+        private void skipTo(char c) throws IOException {
+            String line;
+            while ((line = next()) != null && line.indexOf(c) < 0) {
+                // skip
+            }
+        }
+    }
+}
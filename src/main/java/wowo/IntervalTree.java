@@ -0,0 +1,160 @@
+package wowo;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Interval tree over events, keyed on start day and augmented with the latest end day
+ * of each subtree. It is kept balanced as a treap, so insert and delete cost O(log n) and
+ * an overlap query costs O(log n + k) for k results.
+ */
+final class IntervalTree {
+    private final Map<Event, Node> nodes = new IdentityHashMap<>();
+    private final Random priorities = new Random();
+    private Node root;
+    private long nextSeq;
+
+    int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Adds an event.
+     *
+     * @param e the event
+     */
+    void add(Event e) {
+        Node existing = nodes.get(e);
+        if (existing != null) {
+            existing.count++;
+            return;
+        }
+        Node n = new Node(e, nextSeq++, priorities.nextInt());
+        nodes.put(e, n);
+        Node[] parts = split(root, n.lo, n.seq);
+        root = merge(merge(parts[0], n), parts[1]);
+    }
+
+    /**
+     * Removes an event.
+     *
+     * @param e the event
+     */
+    void remove(Event e) {
+        Node n = nodes.get(e);
+        if (n == null || --n.count > 0) {
+            return;
+        }
+        nodes.remove(e);
+        Node[] lower = split(root, n.lo, n.seq);
+        Node[] upper = split(lower[1], n.lo, n.seq + 1);
+        root = merge(lower[0], upper[1]);
+    }
+
+    /**
+     * Removes every event.
+     */
+    void clear() {
+        nodes.clear();
+        root = null;
+    }
+
+    /**
+     * Returns the events overlapping {@code [from, to]}, ordered by start day.
+     *
+     * @param from first epoch day of the range
+     * @param to last epoch day of the range
+     * @return the overlapping events
+     */
+    List<Event> overlapping(long from, long to) {
+        List<Event> out = new ArrayList<>();
+        collect(root, from, to, out);
+        return out;
+    }
+
+    private static void collect(Node n, long from, long to, List<Event> out) {
+        if (n == null || n.maxHi < from) {
+            return;
+        }
+        collect(n.left, from, to, out);
+        if (n.lo > to) {
+            // Everything to the right starts even later
+            return;
+        }
+        if (n.hi >= from) {
+            out.add(n.event);
+        }
+        collect(n.right, from, to, out);
+    }
+
+    /** Splits into nodes ordered before {@code (lo, seq)} and the rest. */
+    private static Node[] split(Node n, long lo, long seq) {
+        if (n == null) {
+            return new Node[] {null, null};
+        }
+        if (n.lo < lo || (n.lo == lo && n.seq < seq)) {
+            Node[] parts = split(n.right, lo, seq);
+            n.right = parts[0];
+            n.update();
+            return new Node[] {n, parts[1]};
+        }
+        Node[] parts = split(n.left, lo, seq);
+        n.left = parts[1];
+        n.update();
+        return new Node[] {parts[0], n};
+    }
+
+    /** Joins two treaps where every node of {@code a} is ordered before every node of {@code b}. */
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            a.update();
+            return a;
+        }
+        b.left = merge(a, b.left);
+        b.update();
+        return b;
+    }
+
+    /** One event in the tree. */
+    private static final class Node {
+        private final Event event;
+        private final long lo;
+        private final long hi;
+        private final long seq;
+        private final int priority;
+        private long maxHi;
+        private int count = 1;
+        private Node left;
+        private Node right;
+
+        private Node(Event event, long seq, int priority) {
+            this.event = event;
+            this.lo = event.getFrom().toEpochDay();
+            this.hi = Math.max(lo, event.getTo().toEpochDay());
+            this.seq = seq;
+            this.priority = priority;
+            this.maxHi = hi;
+        }
+
+        private void update() {
+            long m = hi;
+            if (left != null && left.maxHi > m) {
+                m = left.maxHi;
+            }
+            if (right != null && right.maxHi > m) {
+                m = right.maxHi;
+            }
+            maxHi = m;
+        }
+    }
+}
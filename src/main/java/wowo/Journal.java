@@ -0,0 +1,347 @@
+package wowo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of the changes made to the task list since the last snapshot.
+ * <p>Format per line:
+ * <pre>
+ *   +|T|0|task name   a task was added (same record as the data file)
+ *   -|3               task 3 was deleted
+ *   R|3,5,9           tasks 3, 5 and 9 were deleted at once
+ *   X|3               task 3 was marked as done
+ *   O|3               task 3 was marked as not done
+ *   S                 the list was sorted by date then name
+ *   N                 the list was sorted by name
+ * </pre>
+ */
+final class Journal implements TaskList.ChangeListener {
+    private final Path file;
+    private final StringBuilder pending = new StringBuilder();
+    private FileChannel channel;
+    private volatile long size;
+    private volatile long bytesAppended;
+
+    /**
+     * Creates a journal backed by the given file
+     *
+     * @param file path to the journal file
+     */
+    Journal(Path file) {
+        this.file = file;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        pending.append("+|").append(task.serialize()).append('\n');
+    }
+
+    @Override
+    public void taskDeleted(int n) {
+        pending.append("-|").append(n).append('\n');
+    }
+
+    @Override
+    public void tasksDeleted(int[] ns) {
+        pending.append("R|");
+        for (int i = 0; i < ns.length; i++) {
+            if (i > 0) {
+                pending.append(',');
+            }
+            pending.append(ns[i]);
+        }
+        pending.append('\n');
+    }
+
+    @Override
+    public void taskMarked(int n, boolean done) {
+        pending.append(done ? "X|" : "O|").append(n).append('\n');
+    }
+
+    @Override
+    public void tasksSortedByDate() {
+        pending.append("S\n");
+    }
+
+    @Override
+    public void tasksSortedByName() {
+        pending.append("N\n");
+    }
+
+    /**
+     * Takes the records that have not been written yet
+     *
+     * @return the pending records, possibly empty
+     */
+    String drainPending() {
+        String out = pending.toString();
+        pending.setLength(0);
+        return out;
+    }
+
+    /** Drops the records that have not been written yet, e.g. after a full snapshot. */
+    void discardPending() {
+        pending.setLength(0);
+    }
+
+    long size() {
+        return size;
+    }
+
+    /** Bytes appended by this journal since it was created, across rotations. */
+    long bytesAppended() {
+        return bytesAppended;
+    }
+
+    /**
+     * Appends the pending records to the journal file
+     *
+     * @return size of the journal file in bytes after the append
+     * @throws IOException if the append fails
+     */
+    long flush() throws IOException {
+        return append(drainPending(), false);
+    }
+
+    /**
+     * Appends already drained records to the journal file
+     *
+     * @param records the records, one per line
+     * @param force whether to fsync the journal after the append
+     * @return size of the journal file in bytes after the append
+     * @throws IOException if the append fails
+     */
+    long append(String records, boolean force) throws IOException {
+        if (records.isEmpty() && !force) {
+            return open().size();
+        }
+        FileChannel ch = open();
+        ByteBuffer buf = ByteBuffer.wrap(records.getBytes(StandardCharsets.UTF_8));
+        bytesAppended += buf.remaining();
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+        if (force) {
+            ch.force(false);
+        }
+        size = ch.size();
+        return size;
+    }
+
+    private FileChannel open() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND,
+                    StandardOpenOption.WRITE);
+            size = channel.size();
+        }
+        return channel;
+    }
+
+    /**
+     * Moves the journal file aside so that new records start a fresh file
+     *
+     * @param target where the current journal file is moved to
+     * @throws IOException if the move fails
+     */
+    void rotateTo(Path target) throws IOException {
+        close();
+        if (Files.exists(file)) {
+            Files.move(file, target);
+        }
+        size = 0;
+    }
+
+    /** Deletes the journal file together with anything still pending. */
+    void reset() throws IOException {
+        close();
+        pending.setLength(0);
+        Files.deleteIfExists(file);
+        size = 0;
+    }
+
+    /** Closes the journal file; it is reopened by the next append. */
+    void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Re-applies the records of a journal file onto a plain list of tasks, so replaying does not
+     * pay for indexes that the loaded list builds anyway. The file is scanned in place and task
+     * records go through the data file's tokenizer. A torn last line, left by a crash during an
+     * append, is skipped; any other record that cannot be applied fails the load, like a bad
+     * record in the data file does.
+     *
+     * @param journal the journal file, may be missing
+     * @param tasks the tasks to apply the records to, in list order
+     * @throws IOException if the file cannot be read
+     * @throws WowoException if a record is corrupted or a replayed task has an invalid date
+     */
+    static void replay(Path journal, List<Task> tasks) throws IOException, WowoException {
+        if (Files.notExists(journal)) {
+            return;
+        }
+        ByteBuffer buf = TaskCodec.readAll(journal);
+        TaskCodec.RecordReader reader = new TaskCodec.RecordReader();
+        int limit = buf.limit();
+        int line = 0;
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buf.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            line++;
+            // Every append ends its records with a line break
+            boolean torn = lineEnd == limit;
+            int end = lineEnd > lineStart && buf.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            try {
+                apply(buf, lineStart, end, tasks, reader);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                if (!torn) {
+                    throw new WowoException("Corrupted journal record at line " + line + " of "
+                            + journal.getFileName() + ": " + text(buf, lineStart, end), e);
+                }
+            } catch (WowoException e) {
+                if (!torn) {
+                    throw e;
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    /** Applies the record in {@code buf[from, to)}; a blank line does nothing. */
+    private static void apply(ByteBuffer buf, int from, int to, List<Task> tasks, TaskCodec.RecordReader reader)
+            throws WowoException {
+        while (from < to && buf.get(from) <= ' ') {
+            from++;
+        }
+        if (from == to) {
+            return;
+        }
+        switch (buf.get(from)) {
+        case '+':
+            Task t = reader.read(buf, argument(buf, from, to), to);
+            if (t == null) {
+                throw new IllegalArgumentException("not a task record");
+            }
+            tasks.add(t);
+            break;
+        case '-':
+            tasks.remove(number(buf, argument(buf, from, to), to) - 1);
+            break;
+        case 'R':
+            removeAll(tasks, numbers(buf, argument(buf, from, to), to));
+            break;
+        case 'X':
+            tasks.get(number(buf, argument(buf, from, to), to) - 1).markDone();
+            break;
+        case 'O':
+            tasks.get(number(buf, argument(buf, from, to), to) - 1).markUndone();
+            break;
+        case 'S':
+            reorder(tasks, SortedViews.sortByDate(tasks));
+            break;
+        case 'N':
+            reorder(tasks, SortedViews.sortByName(tasks));
+            break;
+        default:
+            throw new IllegalArgumentException("unknown record");
+        }
+    }
+
+    /** Start of what follows the {@code |} after the record type. */
+    private static int argument(ByteBuffer buf, int from, int to) {
+        if (from + 1 >= to || buf.get(from + 1) != '|') {
+            throw new IllegalArgumentException("missing |");
+        }
+        return from + 2;
+    }
+
+    /** The whole number in {@code buf[from, to)}, ignoring surrounding whitespace. */
+    private static int number(ByteBuffer buf, int from, int to) {
+        while (from < to && buf.get(from) <= ' ') {
+            from++;
+        }
+        while (to > from && buf.get(to - 1) <= ' ') {
+            to--;
+        }
+        if (from == to || to - from > 9) {
+            throw new NumberFormatException("not a task number");
+        }
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            int c = buf.get(i) - '0';
+            if (c < 0 || c > 9) {
+                throw new NumberFormatException("not a task number");
+            }
+            v = v * 10 + c;
+        }
+        return v;
+    }
+
+    /** The comma-separated whole numbers in {@code buf[from, to)}. */
+    private static int[] numbers(ByteBuffer buf, int from, int to) {
+        int count = 1;
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == ',') {
+                count++;
+            }
+        }
+        int[] ns = new int[count];
+        int k = 0;
+        int start = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || buf.get(i) == ',') {
+                ns[k++] = number(buf, start, i);
+                start = i + 1;
+            }
+        }
+        return ns;
+    }
+
+    private static String text(ByteBuffer buf, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buf.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Removes tasks by ascending one-based numbers, or none if any number is out of place. */
+    private static void removeAll(List<Task> tasks, int[] ns) {
+        for (int i = 0; i < ns.length; i++) {
+            if (ns[i] < 1 || ns[i] > tasks.size() || (i > 0 && ns[i] <= ns[i - 1])) {
+                throw new IndexOutOfBoundsException(ns[i]);
+            }
+        }
+        List<Task> kept = new ArrayList<>(tasks.size() - ns.length);
+        int next = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            if (next < ns.length && ns[next] == i + 1) {
+                next++;
+            } else {
+                kept.add(tasks.get(i));
+            }
+        }
+        reorder(tasks, kept);
+    }
+
+    private static void reorder(List<Task> tasks, List<Task> order) {
+        tasks.clear();
+        tasks.addAll(order);
+    }
+}
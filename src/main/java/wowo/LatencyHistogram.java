@@ -0,0 +1,85 @@
+package wowo;
+
+/**
+ * Fixed-size log-linear histogram of durations in nanoseconds. Each power of two is split
+ * into {@value #SUB_BUCKETS} buckets, so a recorded value lands in a bucket at most 1/16
+ * wider than itself; recording is a few shifts and an increment.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long max;
+    private long sum;
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos the duration; negative values count as 0
+     */
+    synchronized void record(long nanos) {
+        long v = Math.max(0, nanos);
+        counts[bucket(v)]++;
+        count++;
+        sum += v;
+        if (v > max) {
+            max = v;
+        }
+    }
+
+    synchronized long count() {
+        return count;
+    }
+
+    synchronized long max() {
+        return max;
+    }
+
+    synchronized long mean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * Returns an upper bound of the value below which {@code fraction} of the durations fall.
+     *
+     * @param fraction between 0 and 1, e.g. 0.99
+     * @return the duration in nanoseconds, never above the max recorded
+     */
+    synchronized long percentile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank) {
+                return Math.min(max, upperBound(b));
+            }
+        }
+        return max;
+    }
+
+    /** Values below 16 get a bucket each; above, the leading five bits pick the bucket. */
+    private static int bucket(long v) {
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        int sub = (int) (v >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /** The largest value that falls into a bucket. */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long sub = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
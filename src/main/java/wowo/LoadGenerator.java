@@ -0,0 +1,222 @@
+package wowo;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives a {@link Server} on the loopback address with many clients and reports throughput and
+ * tail latency. Busy clients send commands back to back, each waiting for its reply; idle clients
+ * only hold a connection open for the whole run. Busy clients can be spread over several named
+ * lists, to exercise the server's list cache.
+ * <p>Writing clients add tasks for good, so point it at a server started on a scratch data file.
+ */
+public final class LoadGenerator {
+    private final int port;
+    private final int clients;
+    private final int idle;
+    private final long seconds;
+    private final int writePercent;
+    private final int listCount;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong failures = new AtomicLong();
+
+    LoadGenerator(int port, int clients, int idle, long seconds, int writePercent, int listCount) {
+        this.port = port;
+        this.clients = clients;
+        this.idle = idle;
+        this.seconds = seconds;
+        this.writePercent = writePercent;
+        this.listCount = listCount;
+    }
+
+    /**
+     * Opens the idle connections, runs the busy clients for the set time and formats the results.
+     *
+     * @return the report
+     * @throws IOException if an idle connection cannot be opened
+     * @throws InterruptedException if interrupted while waiting for the clients
+     */
+    String run() throws IOException, InterruptedException {
+        List<Connection> held = new ArrayList<>(idle);
+        ExecutorService pool = Server.threadPerTask("wowo-load");
+        try {
+            for (int i = 0; i < idle; i++) {
+                held.add(new Connection(port));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            long start = System.nanoTime();
+            List<Future<?>> busy = new ArrayList<>(clients);
+            for (int c = 0; c < clients; c++) {
+                int id = c;
+                busy.add(pool.submit(() -> {
+                    drive(id, deadline);
+                    return null;
+                }));
+            }
+            for (Future<?> f : busy) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    failures.incrementAndGet();
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            // Every idle connection must still be served after the run
+            int alive = 0;
+            for (Connection c : held) {
+                try {
+                    c.send("bye");
+                    alive++;
+                } catch (IOException e) {
+                    failures.incrementAndGet();
+                }
+            }
+            return report(elapsed, alive);
+        } finally {
+            for (Connection c : held) {
+                c.close();
+            }
+            pool.shutdownNow();
+        }
+    }
+
+    private void drive(int id, long deadline) throws IOException {
+        try (Connection c = new Connection(port)) {
+            if (listCount > 1) {
+                c.send("use load" + id % listCount);
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int sent = 0;
+            while (System.nanoTime() < deadline) {
+                String command = random.nextInt(100) < writePercent
+                        ? "todo load " + id + " task " + sent
+                        : "find load " + id + " ";
+                long start = System.nanoTime();
+                c.send(command);
+                latency.record(System.nanoTime() - start);
+                sent++;
+            }
+            if (listCount > 1) {
+                c.send("lists");
+            }
+            c.send("bye");
+        }
+    }
+
+    private String report(long elapsedNanos, int alive) {
+        long n = latency.count();
+        double perSecond = n / (elapsedNanos / 1e9);
+        return String.format("%d clients, %d idle connections (%d still served), %.1f s%n"
+                        + "%d requests, %.0f req/s, %d failed%n"
+                        + "latency us: p50 %d  p90 %d  p99 %d  p99.9 %d  max %d",
+                clients, idle, alive, elapsedNanos / 1e9, n, perSecond, failures.get(),
+                micros(latency.percentile(0.50)), micros(latency.percentile(0.90)),
+                micros(latency.percentile(0.99)), micros(latency.percentile(0.999)), micros(latency.max()));
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /** One client connection, with the greeting already read. */
+    private static final class Connection implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final BufferedWriter out;
+
+        private Connection(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            readReply();
+        }
+
+        /** Sends a command and reads its reply up to the closing dot. */
+        private void send(String command) throws IOException {
+            out.write(command);
+            out.write('\n');
+            out.flush();
+            readReply();
+        }
+
+        private void readReply() throws IOException {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.equals(Server.END)) {
+                    return;
+                }
+            }
+            throw new IOException("Server closed the connection");
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+        }
+    }
+
+    /**
+     * Load generator entry point.
+     * <pre>
+     *   [--port N] [--clients N] [--idle N] [--seconds N] [--write-percent P] [--lists N]
+     * </pre>
+     * Defaults: port 7878, 50 busy clients, 1000 idle connections, 10 seconds, 10% writes,
+     * and every client on the default list.
+     *
+     * @param args command-line arguments
+     * @throws Exception if the run cannot start
+     */
+    public static void main(String[] args) throws Exception {
+        int port = Server.DEFAULT_PORT;
+        int clients = 50;
+        int idle = 1000;
+        long seconds = 10;
+        int writePercent = 10;
+        int listCount = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            int value = Integer.parseInt(args[i + 1]);
+            switch (args[i]) {
+            case "--port":
+                port = value;
+                break;
+            case "--clients":
+                clients = value;
+                break;
+            case "--idle":
+                idle = value;
+                break;
+            case "--seconds":
+                seconds = value;
+                break;
+            case "--write-percent":
+                writePercent = value;
+                break;
+            case "--lists":
+                listCount = value;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        System.out.println(new LoadGenerator(port, clients, idle, seconds, writePercent, listCount).run());
+    }
+}
@@ -1,8 +1,10 @@
 package wowo;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.BitSet;
 
 /**
  * Parses user input command into structured pieces that can be easily read by the app.
@@ -14,6 +16,12 @@ public final class Parser {
             DateTimeFormatter.ofPattern("dd/M/uuuu")
     };
 
+    private static final String DATE_HINT =
+            "Please use a date like yyyy-MM-dd (e.g., 2019-12-02) or d/M/yyyy.";
+    private static final String LIST_HINT = "Use: list [date|name] [page] [--limit N], with positive numbers.";
+    /** Marks text that has a known date shape but names no real day. */
+    private static final LocalDate NOT_A_DATE = LocalDate.MIN;
+
     private Parser() {}
 
     /**
@@ -24,15 +32,116 @@ public final class Parser {
      * @throws NonIntegerIndexException if the index part is not a number
      */
     public static int parseIndex(String input) throws EmptyDescriptionException, NonIntegerIndexException {
-        String[] parts = input.split("\\s+", 2);
-        if (parts.length < 2 || parts[1].isBlank()) {
+        int end = trimEnd(input, 0, input.length());
+        int i = 0;
+        while (i < end && !isSpace(input.charAt(i))) {
+            i++;
+        }
+        i = trimStart(input, i, end);
+        if (i == end) {
             throw new EmptyDescriptionException();
         }
-        try {
-            return Integer.parseInt(parts[1].trim());
-        } catch (NumberFormatException e) {
+        return signedIndex(input, i, end);
+    }
+
+    /** A whole number in {@code s[i, end)} with an optional sign, as {@link Integer#parseInt} reads it. */
+    private static int signedIndex(String s, int i, int end) throws NonIntegerIndexException {
+        boolean negative = i < end && s.charAt(i) == '-';
+        if (negative || i < end && s.charAt(i) == '+') {
+            i++;
+        }
+        if (i == end) {
             throw new NonIntegerIndexException();
         }
+        // Accumulate as a negative number so Integer.MIN_VALUE still fits
+        int value = 0;
+        for (; i < end; i++) {
+            int digit = Character.digit(s.charAt(i), 10);
+            if (digit < 0 || value < (Integer.MIN_VALUE + digit) / 10) {
+                throw new NonIntegerIndexException();
+            }
+            value = value * 10 - digit;
+        }
+        if (!negative && value == Integer.MIN_VALUE) {
+            throw new NonIntegerIndexException();
+        }
+        return negative ? value : -value;
+    }
+
+    /**
+     * Parses the indices of a command that accepts several, e.g. {@code mark 3},
+     * {@code delete 3,5,9} or {@code mark 1-500, 600}. A single index is read like
+     * {@link #parseIndex(String)}, so {@code mark -3} is outside the list rather than malformed.
+     * @param input The raw user command
+     * @param size number of tasks in the list; every index must be between 1 and this
+     * @return the 1-based indices, ascending and without repeats
+     * @throws EmptyDescriptionException if the index part is missing
+     * @throws NonIntegerIndexException if an index or range is malformed
+     * @throws InvalidTaskIndexException if an index is outside the list
+     */
+    public static int[] parseIndices(String input, int size) throws WowoException {
+        int end = trimEnd(input, 0, input.length());
+        int i = 0;
+        while (i < end && !isSpace(input.charAt(i))) {
+            i++;
+        }
+        i = trimStart(input, i, end);
+        if (i == end) {
+            throw new EmptyDescriptionException();
+        }
+
+        // Grows to the largest index given, not to the size of the list
+        BitSet picked = new BitSet();
+        while (true) {
+            int itemEnd = indexOf(input, ',', i, end);
+            if (itemEnd < 0) {
+                itemEnd = end;
+            }
+            int start = trimStart(input, i, itemEnd);
+            int stop = trimEnd(input, start, itemEnd);
+            // A dash in first place is the sign of a single index
+            int dash = start < stop ? indexOf(input, '-', start + 1, stop) : -1;
+            int lo = dash < 0 ? signedIndex(input, start, stop) : index(input, start, dash);
+            int hi = dash < 0 ? lo : index(input, dash + 1, stop);
+            if (hi < lo) {
+                throw new NonIntegerIndexException();
+            }
+            if (lo < 1 || hi > size) {
+                throw new InvalidTaskIndexException();
+            }
+            if (itemEnd == end && picked.isEmpty()) {
+                return range(lo, hi);
+            }
+            picked.set(lo, hi + 1);
+            if (itemEnd == end) {
+                return picked.stream().toArray();
+            }
+            i = itemEnd + 1;
+        }
+    }
+
+    /** The indices from {@code lo} to {@code hi}, both included. */
+    private static int[] range(int lo, int hi) {
+        int[] out = new int[hi - lo + 1];
+        for (int k = 0; k < out.length; k++) {
+            out[k] = lo + k;
+        }
+        return out;
+    }
+
+    /** A non-negative index in {@code s[start, end)}, ignoring surrounding whitespace. */
+    private static int index(String s, int start, int end) throws NonIntegerIndexException {
+        end = trimEnd(s, start, end);
+        start = trimStart(s, start, end);
+        if (end - start > 9) {
+            // Longer than any index a list can reach
+            throw new NonIntegerIndexException();
+        }
+        int value = digits(s, start, end);
+        if (value < 0) {
+            throw new NonIntegerIndexException();
+        }
+        return value;
     }
 
     /**
@@ -42,15 +151,15 @@ public final class Parser {
      * @throws WowoException if the input is missing description or due date
      */
     public static DeadlineParts parseDeadline(String input) throws WowoException {
-        String rest = input.substring("deadline".length()).trim();
-        int p = rest.indexOf("/by");
-        String desc = (p == -1) ? rest : rest.substring(0, p).trim();
-        String by = (p == -1) ? "" : rest.substring(p + 3).trim();
-        if (desc.isEmpty()) {
+        int end = trimEnd(input, 0, input.length());
+        int start = trimStart(input, Math.min("deadline".length(), end), end);
+        int by = input.indexOf("/by", start);
+        int descEnd = trimEnd(input, start, by == -1 ? end : by);
+        if (descEnd == start) {
             throw new EmptyDescriptionException();
         }
-        LocalDate due = parseUserDate(by);
-        return new DeadlineParts(desc, due);
+        LocalDate due = by == -1 ? parseUserDate(input, end, end) : parseUserDate(input, by + 3, end);
+        return new DeadlineParts(input.substring(start, descEnd), due);
     }
 
     /**
@@ -60,18 +169,20 @@ public final class Parser {
      * @throws WowoException if the input is missing description or the time period
      */
     public static EventParts parseEvent(String input) throws WowoException {
-        String rest = input.substring("event".length()).trim();
-        int pf = rest.indexOf("/from");
-        int pt = rest.indexOf("/to");
-        String desc = (pf == -1) ? rest : rest.substring(0, pf).trim();
-        String from = (pf == -1 || pt == -1) ? "" : rest.substring(pf + 5, pt).trim();
-        String to = (pt == -1) ? "" : rest.substring(pt + 3).trim();
-        if (desc.isEmpty()) {
+        int end = trimEnd(input, 0, input.length());
+        int start = trimStart(input, Math.min("event".length(), end), end);
+        int pf = input.indexOf("/from", start);
+        int pt = input.indexOf("/to", start);
+        int descEnd = trimEnd(input, start, pf == -1 ? end : pf);
+        if (descEnd == start) {
             throw new EmptyDescriptionException();
         }
-        LocalDate fromDate = parseUserDate(from);
-        LocalDate toDate = parseUserDate(to);
-        return new EventParts(desc, fromDate, toDate);
+        // A /to written before /from leaves the start date empty
+        LocalDate fromDate = pf == -1 || pt < pf + 5
+                ? parseUserDate(input, end, end)
+                : parseUserDate(input, pf + 5, pt);
+        LocalDate toDate = pt == -1 ? parseUserDate(input, end, end) : parseUserDate(input, pt + 3, end);
+        return new EventParts(input.substring(start, descEnd), fromDate, toDate);
     }
 
     /**
@@ -81,25 +192,171 @@ public final class Parser {
      * @throws EmptyDescriptionException if the input is missing the description
      */
     public static String parseTodoDesc(String input) throws EmptyDescriptionException {
-        String desc = input.length() > 4 ? input.substring(5).trim() : "";
-        if (desc.isEmpty()) {
-            throw new EmptyDescriptionException();
-        }
-        return desc;
+        return rest(input, 5);
     }
 
 
     /** helper function to parses date */
-    private static LocalDate parseUserDate(String text) throws WowoException {
-        String s = text == null ? "" : text.trim();
+    static LocalDate parseUserDate(String text) throws WowoException {
+        String s = text == null ? "" : text;
+        return parseUserDate(s, 0, s.length());
+    }
+
+    /**
+     * Parses the date in {@code s[start, end)}, ignoring surrounding whitespace.
+     * The usual shapes are read directly; anything else goes through the formatters.
+     */
+    private static LocalDate parseUserDate(String s, int start, int end) throws WowoException {
+        end = trimEnd(s, start, end);
+        start = trimStart(s, start, end);
+        LocalDate fast = parseDateFast(s, start, end);
+        if (fast == NOT_A_DATE) {
+            throw new WowoException(DATE_HINT);
+        }
+        if (fast != null) {
+            return fast;
+        }
+        String text = s.substring(start, end);
         for (DateTimeFormatter f : INPUT_DATE_PATTERNS) {
             try {
-                return LocalDate.parse(s, f);
+                return LocalDate.parse(text, f);
             } catch (DateTimeParseException ignore) {
                 // try next pattern
             }
         }
-        throw new WowoException("Please use a date like yyyy-MM-dd (e.g., 2019-12-02) or d/M/yyyy.");
+        throw new WowoException(DATE_HINT);
+    }
+
+    /**
+     * Reads {@code yyyy-MM-dd} and {@code d/M/yyyy} without a formatter, giving the same
+     * result as {@link #INPUT_DATE_PATTERNS}: the ISO form is strict, while the slash form
+     * moves a day past the end of the month back to its last day.
+     *
+     * @return the date, {@link #NOT_A_DATE} if the text has one of these shapes but is not a
+     *     valid date, or {@code null} if it has neither shape
+     */
+    private static LocalDate parseDateFast(String s, int start, int end) {
+        int len = end - start;
+        if (len == 10 && s.charAt(start + 4) == '-' && s.charAt(start + 7) == '-') {
+            int year = digits(s, start, start + 4);
+            int month = digits(s, start + 5, start + 7);
+            int day = digits(s, start + 8, end);
+            if (year < 0 || month < 0 || day < 0) {
+                return null;
+            }
+            if (month < 1 || month > 12 || day < 1 || day > YearMonth.of(year, month).lengthOfMonth()) {
+                return NOT_A_DATE;
+            }
+            return LocalDate.of(year, month, day);
+        }
+
+        int slash1 = indexOf(s, '/', start, end);
+        int slash2 = slash1 < 0 ? -1 : indexOf(s, '/', slash1 + 1, end);
+        if (slash2 < 0 || slash1 - start > 2 || slash2 - slash1 - 1 > 2 || end - slash2 - 1 != 4) {
+            return null;
+        }
+        int day = digits(s, start, slash1);
+        int month = digits(s, slash1 + 1, slash2);
+        int year = digits(s, slash2 + 1, end);
+        if (day < 0 || month < 0 || year < 0) {
+            return null;
+        }
+        if (month < 1 || month > 12 || day < 1 || day > 31) {
+            return NOT_A_DATE;
+        }
+        return LocalDate.of(year, month, Math.min(day, YearMonth.of(year, month).lengthOfMonth()));
+    }
+
+    /** Value of the ASCII digits in {@code s[start, end)}, or -1 if empty or not all digits. */
+    private static int digits(String s, int start, int end) {
+        if (start >= end) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int indexOf(String s, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Whitespace as {@link String#trim()} sees it. */
+    private static boolean isSpace(char c) {
+        return c <= ' ';
+    }
+
+    private static int trimStart(String s, int start, int end) {
+        while (start < end && isSpace(s.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(String s, int start, int end) {
+        while (end > start && isSpace(s.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    /** The trimmed text after the first {@code skip} characters, which must not be blank. */
+    private static String rest(String input, int skip) throws EmptyDescriptionException {
+        int end = trimEnd(input, 0, input.length());
+        int start = trimStart(input, Math.min(skip, end), end);
+        if (start == end) {
+            throw new EmptyDescriptionException();
+        }
+        return input.substring(start, end);
+    }
+
+    /**
+     * Finds the words of {@code s}, split at whitespace, without a regex or substrings.
+     *
+     * @param bounds receives the start and end offsets of each word, two slots per word
+     * @return the number of words, or one more than {@code bounds} can hold if there are more
+     */
+    private static int words(String s, int[] bounds) {
+        int max = bounds.length / 2;
+        int end = s.length();
+        int n = 0;
+        int i = trimStart(s, 0, end);
+        while (i < end) {
+            if (n == max) {
+                return max + 1;
+            }
+            int j = i;
+            while (j < end && !isSpace(s.charAt(j))) {
+                j++;
+            }
+            bounds[2 * n] = i;
+            bounds[2 * n + 1] = j;
+            n++;
+            i = trimStart(s, j, end);
+        }
+        return n;
+    }
+
+    /** Whether word {@code k} found by {@link #words} is {@code word}, ignoring case. */
+    private static boolean isWord(String s, int[] bounds, int k, String word) {
+        int start = bounds[2 * k];
+        return bounds[2 * k + 1] - start == word.length() && s.regionMatches(true, start, word, 0, word.length());
+    }
+
+    /** Parses word {@code k} found by {@link #words} as a date. */
+    private static LocalDate dateWord(String s, int[] bounds, int k) throws WowoException {
+        return parseUserDate(s, bounds[2 * k], bounds[2 * k + 1]);
     }
 
     /**
@@ -111,11 +368,73 @@ public final class Parser {
      */
     public static String parseFind(String input) throws EmptyDescriptionException {
         // "find" (length 4). Allow either exactly "find" (error) or "find <keyword>"
-        String keyword = input.length() > 4 ? input.substring(5).trim() : "";
-        if (keyword.isEmpty()) {
-            throw new EmptyDescriptionException();
+        return rest(input, 5);
+    }
+
+    /**
+     * Parses a "list" command.
+     * <pre>
+     *   list [date|name] [page] [--limit N]
+     * </pre>
+     *
+     * @param input The raw user command
+     * @return the order, page and page size asked for
+     * @throws WowoException if an argument is not one of the above, or not a positive number
+     */
+    public static ListQuery parseList(String input) throws WowoException {
+        // list, order, page, --limit and its value
+        int[] bounds = new int[10];
+        int n = words(input, bounds);
+        if (n > 5) {
+            throw new WowoException(LIST_HINT);
+        }
+        String order = "";
+        int page = 1;
+        int limit = 0;
+        int i = 1;
+        if (i < n && (isWord(input, bounds, i, "date") || isWord(input, bounds, i, "name"))) {
+            order = isWord(input, bounds, i++, "date") ? "date" : "name";
+        }
+        if (i < n && !isLimit(input, bounds, i)) {
+            page = positive(input, bounds, i++);
         }
-        return keyword;
+        if (i < n && isLimit(input, bounds, i)) {
+            if (i + 1 >= n) {
+                throw new WowoException(LIST_HINT);
+            }
+            limit = positive(input, bounds, i + 1);
+            i += 2;
+        }
+        if (i < n) {
+            throw new WowoException(LIST_HINT);
+        }
+        return new ListQuery(order, page, limit);
+    }
+
+    /** Whether word {@code k} is {@code --limit}, which is matched case-sensitively. */
+    private static boolean isLimit(String s, int[] bounds, int k) {
+        return bounds[2 * k + 1] - bounds[2 * k] == 7 && s.startsWith("--limit", bounds[2 * k]);
+    }
+
+    private static int positive(String s, int[] bounds, int k) throws WowoException {
+        int start = bounds[2 * k];
+        int end = bounds[2 * k + 1];
+        int n = end - start > 9 ? -1 : digits(s, start, end);
+        if (n < 1) {
+            throw new WowoException(LIST_HINT);
+        }
+        return n;
+    }
+
+    /**
+     * Parses an import command.
+     *
+     * @param input the raw user input
+     * @return the path of the file to import
+     * @throws EmptyDescriptionException if the path is missing/blank
+     */
+    public static String parseImport(String input) throws EmptyDescriptionException {
+        return rest(input, 7);
     }
 
     /**
@@ -131,6 +450,70 @@ public final class Parser {
         }
     }
 
+    /**
+     * Parses a "due before/after/between" or "on" command.
+     * <pre>
+     *   due before 2019-12-02
+     *   due after 2019-12-02
+     *   due between 2019-12-01 and 2019-12-31
+     *   on 2019-12-02
+     * </pre>
+     *
+     * @param input The raw user command
+     * @return the range of days asked for, bounds inclusive
+     * @throws WowoException if the query or a date is missing or invalid
+     */
+    public static DateRange parseDateQuery(String input) throws WowoException {
+        // due between <date> and <date> is the longest query
+        int[] bounds = new int[10];
+        int n = words(input, bounds);
+        if (n > 0 && isWord(input, bounds, 0, "on")) {
+            if (n != 2) {
+                throw new EmptyDescriptionException();
+            }
+            LocalDate day = dateWord(input, bounds, 1);
+            return new DateRange(day, day);
+        }
+        if (n < 3) {
+            throw new EmptyDescriptionException();
+        }
+        if (isWord(input, bounds, 1, "before")) {
+            return new DateRange(null, dateWord(input, bounds, 2).minusDays(1));
+        }
+        if (isWord(input, bounds, 1, "after")) {
+            return new DateRange(dateWord(input, bounds, 2).plusDays(1), null);
+        }
+        if (isWord(input, bounds, 1, "between")) {
+            int last = n == 5 && isWord(input, bounds, 3, "and") ? 4 : 3;
+            if (n != last + 1) {
+                throw new WowoException("Use: due between <date> and <date>");
+            }
+            return new DateRange(dateWord(input, bounds, 2), dateWord(input, bounds, last));
+        }
+        throw new WowoException("Use: due before <date>, due after <date> or due between <date> and <date>");
+    }
+
+    /**
+     * Parses a "busy" command, e.g. {@code busy 2019-12-01 2019-12-05} or {@code busy 2019-12-01}.
+     *
+     * @param input The raw user command
+     * @return the range of days asked for, bounds inclusive
+     * @throws WowoException if a date is missing or invalid
+     */
+    public static DateRange parseBusy(String input) throws WowoException {
+        int[] bounds = new int[6];
+        int n = words(input, bounds);
+        if (n < 2 || n > 3) {
+            throw new EmptyDescriptionException();
+        }
+        LocalDate from = dateWord(input, bounds, 1);
+        LocalDate to = n == 3 ? dateWord(input, bounds, 2) : from;
+        if (to.isBefore(from)) {
+            throw new WowoException("The end date cannot be before the start date.");
+        }
+        return new DateRange(from, to);
+    }
+
     /**
      * Holder for deadline command.
      */
@@ -169,4 +552,45 @@ public final class Parser {
             this.to = to;
         }
     }
+
+    /**
+     * Holder for a date query; a {@code null} bound means the range is open on that side.
+     */
+    public static final class DateRange {
+        public final LocalDate from;
+        public final LocalDate to;
+
+        /**
+         * Creates a holder for an inclusive range of days
+         * @param from the first day, or null
+         * @param to the last day, or null
+         */
+        public DateRange(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * Holder for list command.
+     */
+    public static final class ListQuery {
+        /** {@code ""} for list order, {@code "date"} or {@code "name"}. */
+        public final String order;
+        public final int page;
+        /** Tasks per page, or 0 for the default, which shows every task unless configured. */
+        public final int limit;
+
+        /**
+         * Creates a holder for a page of the list
+         * @param order the order to list in
+         * @param page the one-based page number
+         * @param limit tasks per page, or 0 for the default, which shows every task unless configured
+         */
+        public ListQuery(String order, int page, int limit) {
+            this.order = order;
+            this.page = page;
+            this.limit = limit;
+        }
+    }
 }
@@ -0,0 +1,277 @@
+package wowo;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Writes task list changes to {@link Storage} on a background thread.
+ * <p>Every command hands its changes over through {@link #commit(List)}. The writer waits up to a
+ * window (or until a batch of commits has piled up) and then writes the whole group at once,
+ * so a burst of commands pays for a single disk write. {@link #close()} writes whatever is
+ * still queued before returning.
+ */
+public final class PersistenceWriter implements TaskList.ChangeListener {
+    /** How hard the writer tries to get changes onto the disk. */
+    public enum Durability {
+        /** Never fsync; the OS decides when the data reaches the disk. */
+        NONE,
+        /** Fsync once per written group. */
+        GROUP,
+        /** Fsync before every command returns; no coalescing across commands. */
+        COMMAND
+    }
+
+    public static final long DEFAULT_WINDOW_MILLIS = 50;
+    public static final int DEFAULT_MAX_BATCH = 64;
+
+    private final Storage storage;
+    private final Durability durability;
+    private final long windowMillis;
+    private final int maxBatch;
+    private final Thread thread;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<Write> queue = new ArrayDeque<>();
+    private long submitted;
+    private long written;
+    private long firstQueuedAt;
+    private int waiters;
+    private volatile boolean compactionQueued;
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * Creates a writer with the default window and batch size.
+     *
+     * @param storage where the changes go
+     * @param durability the fsync policy
+     */
+    public PersistenceWriter(Storage storage, Durability durability) {
+        this(storage, durability, DEFAULT_WINDOW_MILLIS, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * Creates a writer and starts its thread.
+     *
+     * @param storage where the changes go
+     * @param durability the fsync policy
+     * @param windowMillis how long to wait for more commits before writing a group
+     * @param maxBatch number of commits after which a group is written right away
+     */
+    public PersistenceWriter(Storage storage, Durability durability, long windowMillis, int maxBatch) {
+        this.storage = storage;
+        this.durability = durability;
+        this.windowMillis = durability == Durability.COMMAND ? 0 : windowMillis;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.thread = new Thread(this::loop, "wowo-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        storage.taskAdded(task);
+    }
+
+    @Override
+    public void taskDeleted(int n) {
+        storage.taskDeleted(n);
+    }
+
+    @Override
+    public void tasksDeleted(int[] ns) {
+        storage.tasksDeleted(ns);
+    }
+
+    @Override
+    public void taskMarked(int n, boolean done) {
+        storage.taskMarked(n, done);
+    }
+
+    @Override
+    public void tasksSortedByDate() {
+        storage.tasksSortedByDate();
+    }
+
+    @Override
+    public void tasksSortedByName() {
+        storage.tasksSortedByName();
+    }
+
+    /**
+     * Hands the changes of one command to the writer. Must be called from the thread that
+     * changes the task list. With {@link Durability#COMMAND} this blocks until they are synced.
+     *
+     * @param tasks the current tasks
+     * @throws WowoException if an earlier write failed
+     */
+    public void commit(List<Task> tasks) throws WowoException {
+        Write w;
+        if (storage.isJournaled()) {
+            List<String> snapshot = null;
+            String records = storage.drainJournal();
+            if (!compactionQueued && storage.needsCompaction()) {
+                snapshot = Storage.serializeAll(tasks);
+                compactionQueued = true;
+            }
+            w = new Write(records, snapshot, null);
+        } else {
+            w = new Write(null, null, List.copyOf(tasks));
+        }
+
+        long seq;
+        synchronized (lock) {
+            rethrowFailure();
+            if (closed) {
+                throw new WowoException("Unable to save data: storage is closed");
+            }
+            if (queue.isEmpty()) {
+                firstQueuedAt = System.currentTimeMillis();
+            }
+            queue.add(w);
+            seq = ++submitted;
+            lock.notifyAll();
+        }
+        if (durability == Durability.COMMAND) {
+            awaitWritten(seq);
+        }
+    }
+
+    /**
+     * Blocks until everything committed so far has been written.
+     *
+     * @throws WowoException if a write failed
+     */
+    public void flush() throws WowoException {
+        long seq;
+        synchronized (lock) {
+            seq = submitted;
+        }
+        awaitWritten(seq);
+    }
+
+    /**
+     * Writes everything still queued, stops the writer thread and closes the storage.
+     *
+     * @throws WowoException if a write failed
+     */
+    public void close() throws WowoException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            rethrowFailure();
+        }
+        storage.close();
+    }
+
+    private void awaitWritten(long seq) throws WowoException {
+        synchronized (lock) {
+            waiters++;
+            lock.notifyAll();
+            try {
+                while (written < seq && failure == null) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WowoException("Interrupted while saving data", e);
+            } finally {
+                waiters--;
+            }
+            rethrowFailure();
+        }
+    }
+
+    private void rethrowFailure() throws WowoException {
+        if (failure != null) {
+            throw new WowoException("Unable to save data: " + failure.getMessage(), failure);
+        }
+    }
+
+    private void loop() {
+        while (true) {
+            List<Write> group;
+            long target;
+            synchronized (lock) {
+                try {
+                    while (queue.isEmpty() && !closed) {
+                        lock.wait();
+                    }
+                    if (queue.isEmpty()) {
+                        return;
+                    }
+                    long deadline = firstQueuedAt + windowMillis;
+                    long now = System.currentTimeMillis();
+                    while (!closed && queue.size() < maxBatch && now < deadline && waiters == 0) {
+                        lock.wait(deadline - now);
+                        now = System.currentTimeMillis();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                group = List.copyOf(queue);
+                queue.clear();
+                target = submitted;
+            }
+
+            try {
+                write(group);
+                synchronized (lock) {
+                    written = target;
+                    lock.notifyAll();
+                }
+            } catch (IOException | WowoException e) {
+                synchronized (lock) {
+                    failure = e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e);
+                    lock.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    private void write(List<Write> group) throws IOException, WowoException {
+        boolean force = durability != Durability.NONE;
+        if (!storage.isJournaled()) {
+            // Only the latest copy of the list matters
+            storage.save(group.get(group.size() - 1).tasks);
+            return;
+        }
+        StringBuilder records = new StringBuilder();
+        for (Write w : group) {
+            records.append(w.records);
+            if (w.snapshot != null) {
+                storage.appendJournal(records.toString(), force);
+                records.setLength(0);
+                storage.compact(w.snapshot);
+                compactionQueued = false;
+            }
+        }
+        storage.appendJournal(records.toString(), force);
+    }
+
+    /** Changes of one command. */
+    private static final class Write {
+        private final String records;
+        private final List<String> snapshot;
+        private final List<Task> tasks;
+
+        private Write(String records, List<String> snapshot, List<Task> tasks) {
+            this.records = records;
+            this.snapshot = snapshot;
+            this.tasks = tasks;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package wowo;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * List backed by a treap ordered by position, with each node holding the size of its subtree.
+ * Get, insert and delete at any position cost O(log n), unlike an array list which has
+ * to shift its whole tail on a delete near the head.
+ *
+ * @param <E> element type
+ */
+final class RankedList<E> extends AbstractList<E> {
+    private Node<E> root;
+    private int seed = 0x2545F491;
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public E get(int index) {
+        return node(index).value;
+    }
+
+    @Override
+    public E set(int index, E element) {
+        Node<E> n = node(index);
+        E old = n.value;
+        n.value = element;
+        return old;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        Node<E> n = new Node<>(element, nextPriority());
+        if (index == size()) {
+            root = merge(root, n);
+        } else {
+            Node<E>[] parts = split(root, index);
+            root = merge(merge(parts[0], n), parts[1]);
+        }
+        modCount++;
+    }
+
+    @Override
+    public E remove(int index) {
+        checkIndex(index);
+        Node<E>[] parts = split(root, index);
+        Node<E>[] rest = split(parts[1], 1);
+        root = merge(parts[0], rest[1]);
+        modCount++;
+        return rest[0].value;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        modCount++;
+    }
+
+    /**
+     * Appends all elements; an empty list is built directly as a balanced tree in O(n).
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        if (!isEmpty() || c.isEmpty()) {
+            return super.addAll(c);
+        }
+        @SuppressWarnings("unchecked")
+        E[] values = (E[]) c.toArray();
+        int[] priorities = new int[values.length];
+        for (int i = 0; i < priorities.length; i++) {
+            priorities[i] = nextPriority();
+        }
+        Arrays.sort(priorities);
+        root = build(values, 0, values.length, priorities, new int[] {priorities.length - 1});
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private final ArrayDeque<Node<E>> stack = new ArrayDeque<>();
+            private final int expectedModCount = modCount;
+
+            {
+                pushLeft(root);
+            }
+
+            private void pushLeft(Node<E> n) {
+                for (Node<E> cur = n; cur != null; cur = cur.left) {
+                    stack.push(cur);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public E next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node<E> n = stack.pop();
+                pushLeft(n.right);
+                return n.value;
+            }
+        };
+    }
+
+    /**
+     * Builds a balanced subtree over {@code values[from, to)}. Priorities are handed out in
+     * decreasing order before visiting the children, so every parent outranks its subtree.
+     */
+    private Node<E> build(E[] values, int from, int to, int[] priorities, int[] next) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Node<E> n = new Node<>(values[mid], priorities[next[0]--]);
+        n.left = build(values, from, mid, priorities, next);
+        n.right = build(values, mid + 1, to, priorities, next);
+        n.update();
+        return n;
+    }
+
+    private Node<E> node(int index) {
+        checkIndex(index);
+        Node<E> n = root;
+        while (true) {
+            int leftSize = size(n.left);
+            if (index < leftSize) {
+                n = n.left;
+            } else if (index == leftSize) {
+                return n;
+            } else {
+                index -= leftSize + 1;
+                n = n.right;
+            }
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+
+    /** Xorshift; cheaper than {@link java.util.Random} and good enough for balancing. */
+    private int nextPriority() {
+        int x = seed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        seed = x;
+        return x;
+    }
+
+    private static int size(Node<?> n) {
+        return n == null ? 0 : n.size;
+    }
+
+    /** Splits into the first {@code k} nodes and the rest. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <E> Node<E>[] split(Node<E> n, int k) {
+        if (n == null) {
+            return new Node[] {null, null};
+        }
+        if (size(n.left) < k) {
+            Node<E>[] parts = split(n.right, k - size(n.left) - 1);
+            n.right = parts[0];
+            n.update();
+            parts[0] = n;
+            return parts;
+        }
+        Node<E>[] parts = split(n.left, k);
+        n.left = parts[1];
+        n.update();
+        parts[1] = n;
+        return parts;
+    }
+
+    private static <E> Node<E> merge(Node<E> a, Node<E> b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            a.update();
+            return a;
+        }
+        b.left = merge(a, b.left);
+        b.update();
+        return b;
+    }
+
+    /** One element and the size of the subtree below it. */
+    private static final class Node<E> {
+        private E value;
+        private final int priority;
+        private int size = 1;
+        private Node<E> left;
+        private Node<E> right;
+
+        private Node(E value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+
+        private void update() {
+            size = 1 + RankedList.size(left) + RankedList.size(right);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package wowo;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless server sharing named task lists between clients on a local TCP port.
+ * <p>A client sends one command per line. The server answers each with the reply lines followed
+ * by a line holding a single dot; a reply line that starts with a dot gets one more in front.
+ * Besides the chatbot commands, a session understands {@code use <list>} to switch lists (it starts
+ * on {@value Tenants#DEFAULT}), {@code lists} to show the list cache counters, and {@code bye},
+ * which ends the client's session only; the server runs until it is stopped. {@code import} is
+ * refused, since it would read a file on the server's side.
+ * <p>Every connection gets its own thread, virtual when the runtime has them, so idle clients cost
+ * little. Commands on the same list run one at a time (see {@link Tenants}).
+ */
+public final class Server implements Closeable {
+    static final int DEFAULT_PORT = 7878;
+    static final String END = ".";
+
+    private final Tenants lists;
+    private final ServerSocket socket;
+    private final ExecutorService connections = threadPerTask("wowo-client");
+    private final Set<Socket> open = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextSession = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * Opens the port; clients are accepted once {@link #serve()} is called.
+     *
+     * @param lists the task lists to serve
+     * @param port the port on the loopback address, or 0 for any free one
+     * @throws IOException if the port cannot be opened
+     */
+    Server(Tenants lists, int port) throws IOException {
+        this.lists = lists;
+        this.socket = new ServerSocket(port, 4096, InetAddress.getLoopbackAddress());
+    }
+
+    int port() {
+        return socket.getLocalPort();
+    }
+
+    /**
+     * Accepts clients until the server is closed.
+     *
+     * @throws IOException if accepting fails for any reason other than closing
+     */
+    void serve() throws IOException {
+        while (!closed.get()) {
+            Socket client;
+            try {
+                client = socket.accept();
+            } catch (SocketException e) {
+                if (closed.get()) {
+                    return;
+                }
+                throw e;
+            }
+            open.add(client);
+            connections.execute(() -> handle(client, new Session(nextSession.incrementAndGet())));
+        }
+    }
+
+    private void handle(Socket client, Session session) {
+        try (client;
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+                BufferedWriter out = new BufferedWriter(
+                        new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8))) {
+            client.setTcpNoDelay(true);
+            reply(out, "Hello from Wowo! You are client " + session.id + ".");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String input = line.trim();
+                String keyword = CommandRegistry.keyword(input);
+                switch (keyword) {
+                case "bye":
+                    reply(out, "Bye, client " + session.id + ". You sent " + session.commands + " commands.");
+                    return;
+                case "use":
+                    reply(out, use(session, input.substring(keyword.length()).trim()));
+                    break;
+                case "lists":
+                    reply(out, lists.report());
+                    break;
+                case "import":
+                    // The path would be read on the server's side, not the client's
+                    reply(out, "Importing files is not available over the server.");
+                    break;
+                default:
+                    session.commands++;
+                    reply(out, run(session, input));
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            // The client went away; its socket is closed above
+        } finally {
+            open.remove(client);
+        }
+    }
+
+    /** Runs a command on the session's list; a failure is the reply, so the session goes on. */
+    private String run(Session session, String input) {
+        try {
+            return lists.execute(session.list, input);
+        } catch (RuntimeException e) {
+            return "Something went wrong: " + e.getMessage();
+        }
+    }
+
+    private static String use(Session session, String name) {
+        if (!Tenants.isValidName(name)) {
+            return "A list name is 1 to 64 letters, digits, - or _.";
+        }
+        session.list = name;
+        return "Now using list " + name + ".";
+    }
+
+    static void reply(BufferedWriter out, String response) throws IOException {
+        for (String line : response.split("\n", -1)) {
+            if (line.startsWith(END)) {
+                out.write(END);
+            }
+            out.write(line);
+            out.write('\n');
+        }
+        out.write(END);
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * Stops accepting, drops every client and then commits and flushes the resident lists.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Closing anyway
+        }
+        for (Socket client : open) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+        }
+        connections.shutdownNow();
+        lists.close();
+    }
+
+    /**
+     * Returns an executor that starts a thread per task: virtual threads on Java 21 and later,
+     * otherwise daemon platform threads with a small stack.
+     *
+     * @param name prefix of the platform thread names
+     * @return the executor
+     */
+    static ExecutorService threadPerTask(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger n = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(null, r, name + "-" + n.incrementAndGet(), 256 * 1024);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /** What the server knows about one connected client. */
+    private static final class Session {
+        private final int id;
+        private String list = Tenants.DEFAULT;
+        private int commands;
+
+        private Session(int id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Server entry point.
+     * <pre>
+     *   [--port N] [--data DIR] [--lists N]
+     * </pre>
+     * Serves on 127.0.0.1:N (default 7878), keeping each list in {@code DIR/<name>.txt} (default
+     * {@code data}) with at most N lists in memory (default {@code wowo.maxResidentLists}, or 64).
+     *
+     * @param args command-line arguments
+     */
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        Path dir = Path.of("data");
+        int capacity = Integer.getInteger("wowo.maxResidentLists", Tenants.DEFAULT_CAPACITY);
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--port")) {
+                port = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--data")) {
+                dir = Path.of(args[i + 1]);
+            } else if (args[i].equals("--lists")) {
+                capacity = Integer.parseInt(args[i + 1]);
+            }
+        }
+        try (Server server = new Server(new Tenants(dir, capacity), port)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+            System.out.println("Wowo is serving on " + InetAddress.getLoopbackAddress().getHostAddress()
+                    + ":" + server.port());
+            server.serve();
+        } catch (IOException e) {
+            System.err.println("Could not serve on port " + port + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package wowo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Keeps the tasks of a list ordered by date then name, and by name, in two balanced trees
+ * updated in O(log n) per change, so a sorted listing never has to sort.
+ * <p>Sort keys are computed once per task. Both orders are total: tasks that tie on every
+ * key serialize to the same record, so the order between them cannot be observed and a
+ * replayed journal sorts exactly like the live list did.
+ */
+final class SortedViews {
+    /** Breaks ties left by the primary keys; keys equal here belong to identical records. */
+    private static final Comparator<Key> TIES = Comparator
+            .<Key, String>comparing(k -> k.name)
+            .thenComparingInt(k -> k.type)
+            .thenComparingLong(k -> k.endDay)
+            .thenComparing(k -> k.done)
+            .thenComparingLong(k -> k.seq);
+    private static final Comparator<Key> BY_DATE = Comparator
+            .<Key>comparingLong(k -> k.day)
+            .thenComparing(k -> k.name, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(TIES);
+    private static final Comparator<Key> BY_NAME = Comparator
+            .<Key, String>comparing(k -> k.name, String.CASE_INSENSITIVE_ORDER)
+            .thenComparingLong(k -> k.day)
+            .thenComparing(TIES);
+
+    private final Map<Task, Key> keys = new IdentityHashMap<>();
+    private final TreeSet<Key> byDate = new TreeSet<>(BY_DATE);
+    private final TreeSet<Key> byName = new TreeSet<>(BY_NAME);
+    private long nextSeq;
+
+    /**
+     * Adds a task to both views.
+     *
+     * @param t the task
+     */
+    void add(Task t) {
+        Key k = keys.get(t);
+        if (k != null) {
+            // Same instance added twice
+            k.count++;
+            return;
+        }
+        k = new Key(t, nextSeq++);
+        keys.put(t, k);
+        byDate.add(k);
+        byName.add(k);
+    }
+
+    /**
+     * Removes a task from both views.
+     *
+     * @param t the task
+     */
+    void remove(Task t) {
+        Key k = keys.get(t);
+        if (k == null || --k.count > 0) {
+            return;
+        }
+        keys.remove(t);
+        byDate.remove(k);
+        byName.remove(k);
+    }
+
+    /**
+     * Takes a task out of the views before a change to its sort keys (e.g. marking it as done).
+     * Must be followed by {@link #afterChange(Task)}.
+     *
+     * @param t the task
+     */
+    void beforeChange(Task t) {
+        Key k = keys.get(t);
+        if (k != null) {
+            byDate.remove(k);
+            byName.remove(k);
+        }
+    }
+
+    /**
+     * Puts a task back with its new sort keys.
+     *
+     * @param t the task
+     */
+    void afterChange(Task t) {
+        Key k = keys.get(t);
+        if (k != null) {
+            k.done = t.isDone();
+            byDate.add(k);
+            byName.add(k);
+        }
+    }
+
+    /**
+     * Replaces the content of both views.
+     *
+     * @param tasks the tasks
+     */
+    void rebuild(List<Task> tasks) {
+        keys.clear();
+        byDate.clear();
+        byName.clear();
+        for (Task t : tasks) {
+            add(t);
+        }
+    }
+
+    /**
+     * Returns all tasks sorted by date (todos last) then by name.
+     *
+     * @return the tasks in that order
+     */
+    List<Task> byDate() {
+        return collect(byDate);
+    }
+
+    /**
+     * Returns all tasks sorted by name.
+     *
+     * @return the tasks in that order
+     */
+    List<Task> byName() {
+        return collect(byName);
+    }
+
+    /**
+     * Sorts tasks by date then name without keeping a view, in the same order {@link #byDate()} gives.
+     *
+     * @param tasks the tasks
+     * @return the tasks in that order
+     */
+    static List<Task> sortByDate(List<Task> tasks) {
+        return sortOnce(tasks, BY_DATE);
+    }
+
+    /**
+     * Sorts tasks by name without keeping a view, in the same order {@link #byName()} gives.
+     *
+     * @param tasks the tasks
+     * @return the tasks in that order
+     */
+    static List<Task> sortByName(List<Task> tasks) {
+        return sortOnce(tasks, BY_NAME);
+    }
+
+    private static List<Task> sortOnce(List<Task> tasks, Comparator<Key> order) {
+        List<Key> keys = new ArrayList<>(tasks.size());
+        long seq = 0;
+        for (Task t : tasks) {
+            keys.add(new Key(t, seq++));
+        }
+        keys.sort(order);
+        List<Task> out = new ArrayList<>(keys.size());
+        for (Key k : keys) {
+            out.add(k.task);
+        }
+        return out;
+    }
+
+    private List<Task> collect(TreeSet<Key> view) {
+        List<Task> out = new ArrayList<>(keys.size());
+        for (Key k : view) {
+            for (int i = 0; i < k.count; i++) {
+                out.add(k.task);
+            }
+        }
+        return out;
+    }
+
+    /** Sort keys of one task, computed when it is added. */
+    private static final class Key {
+        private final Task task;
+        private final String name;
+        private final long day;
+        private final long endDay;
+        private final char type;
+        private final long seq;
+        private boolean done;
+        private int count = 1;
+
+        private Key(Task t, long seq) {
+            this.task = t;
+            this.name = t.getName();
+            this.type = t.getType().charAt(0);
+            this.seq = seq;
+            this.done = t.isDone();
+            if (t instanceof Deadline d) {
+                this.day = d.getDue().toEpochDay();
+                this.endDay = day;
+            } else if (t instanceof Event e) {
+                this.day = e.getFrom().toEpochDay();
+                this.endDay = e.getTo().toEpochDay();
+            } else {
+                // Todo (no date) goes after dated tasks
+                this.day = Long.MAX_VALUE;
+                this.endDay = Long.MAX_VALUE;
+            }
+        }
+    }
+}
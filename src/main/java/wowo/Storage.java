@@ -1,16 +1,22 @@
 package wowo;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Handles loading and saving tasks to disk using a simple pipe-delimited format.
@@ -20,8 +26,25 @@ import java.util.List;
  *   D|1|task name|due
  *   E|0|task name|from|to
  * </pre>
+ * <p>The data file can also hold a compact binary snapshot (see {@link BinaryCodec}); the
+ * format is detected from the file magic on load and kept for later saves.
+ * <p>In journaled mode the data file is only a snapshot: each change to the list is appended
+ * to {@code <file>.journal} (see {@link Journal}) and replayed on load. Once the journal grows
+ * past a threshold it is folded into a fresh snapshot on a background thread.
+ * A snapshot is committed by renaming a complete {@code <file>.compact} (covers the rotated
+ * journal) or {@code <file>.save} (covers every journal) next to the data file, so an
+ * interrupted write is either finished or ignored on the next load.
  */
-public final class Storage {
+public final class Storage implements TaskList.ChangeListener {
+    /** On-disk layout of the data file snapshot. */
+    public enum Format {
+        TEXT,
+        BINARY
+    }
+
+    /** Journal size in bytes after which a compaction is started. */
+    public static final long DEFAULT_COMPACT_THRESHOLD = 1L << 20;
+
     private static final DateTimeFormatter[] IN_FMT = new DateTimeFormatter[] {
             DateTimeFormatter.ISO_LOCAL_DATE,
             DateTimeFormatter.ofPattern("d/M/uuuu"),
@@ -29,80 +52,139 @@ public final class Storage {
     };
 
     private final Path file;
+    private final Path compactFile;
+    private final Path savedFile;
+    private final Path snapshotTmp;
+    private final Path rotatedJournal;
+    private final Journal journal;
+    private final boolean journaled;
+    private final TaskCodec.Encoder textEncoder = new TaskCodec.Encoder();
+    private final BinaryCodec binaryEncoder = new BinaryCodec();
+    private volatile Format format = Format.TEXT;
+    private final AtomicLong snapshotBytes = new AtomicLong();
+    private long compactThreshold = DEFAULT_COMPACT_THRESHOLD;
+
+    private ExecutorService compactor;
+    private volatile Future<?> compaction;
 
     /**
-     * Creates a storage object that uses {@code ./data/duke.txt}.
+     * Creates a journaled storage object that uses {@code ./data/wowo.txt}.
      */
     public Storage() {
-        this(Paths.get("data", "wowo.txt"));
+        this(Paths.get("data", "wowo.txt"), true);
     }
 
     /**
-     * Creates a storage object for a specific file.
+     * Creates a storage object for a specific file that rewrites the whole file on every save.
      *
      * @param file path to the data file
      */
     public Storage(Path file) {
+        this(file, false);
+    }
+
+    /**
+     * Creates a storage object for a specific file.
+     *
+     * @param file path to the data file
+     * @param journaled whether changes are appended to a journal instead of rewriting the file
+     */
+    public Storage(Path file, boolean journaled) {
         this.file = file;
+        this.journaled = journaled;
+        this.compactFile = sibling(".compact");
+        this.savedFile = sibling(".save");
+        this.snapshotTmp = sibling(".tmp");
+        this.rotatedJournal = sibling(".journal.old");
+        this.journal = new Journal(sibling(".journal"));
+    }
+
+    private Path sibling(String suffix) {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+
+    public boolean isJournaled() {
+        return journaled;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Sets the format used by the next snapshot written. Loading a non-empty file
+     * switches to the format of that file.
+     *
+     * @param format the snapshot format
+     */
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+
+    /**
+     * Sets the journal size after which the journal is folded into a new snapshot.
+     *
+     * @param bytes threshold in bytes
+     */
+    public void setCompactThreshold(long bytes) {
+        this.compactThreshold = bytes;
     }
 
     /**
      * Loads all tasks from disk. If the folder/file does not exist, they are created and an empty list is returned.
+     * Any journal left next to the data file is replayed on top of it.
      *
      * @return list of tasks loaded from disk (never {@code null})
      * @throws WowoException if an I/O error happens
      */
     public List<Task> load() throws WowoException {
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        List<Task> out = null;
         try {
-            ensureFileExists();
-
-            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
-            List<Task> out = new ArrayList<>();
-
-            for (String raw : lines) {
-                if (raw == null || raw.isBlank()) {
-                    continue;
-                }
-                // Split the line into parts using " | " as the delimiter
-                String[] p = raw.split("\\s*\\|\\s*");
-                if (p.length < 3) {
-                    // Corrupted/unknown -> skip quietly
-                    continue;
-                }
-                String type = p[0];
-                boolean done = "1".equals(p[1]);
-                String name = p[2];
-
-                Task t;
-                switch (type) {
-                case "T":
-                    t = new Todo(name);
-                    break;
-                case "D":
-                    if (p.length < 4) {
-                        continue;
-                    }
-                    LocalDate due = parseIsoDate(p[3]);
-                    t = new Deadline(name, due);
-                    break;
-                case "E":
-                    if (p.length < 5) {
-                        continue;
+            out = loadFiles();
+            return out;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                long bytes = 0;
+                for (Path p : new Path[] {file, rotatedJournal, journal.getFile()}) {
+                    try {
+                        bytes += Files.exists(p) ? Files.size(p) : 0;
+                    } catch (IOException ignore) {
+                        // Best effort; the event still has the duration
                     }
-                    LocalDate from = parseIsoDate(p[3]);
-                    LocalDate to = parseIsoDate(p[4]);
-                    t = new Event(name, from, to);
-                    break;
-                default:
-                    continue;
                 }
+                traced(event, "load", bytes, out == null ? -1 : out.size());
+            }
+        }
+    }
 
-                if (done) {
-                    t.markDone();
+    /** Reads the snapshot and replays the journals on top of it. */
+    private List<Task> loadFiles() throws WowoException {
+        try {
+            awaitCompaction();
+            recoverCompaction();
+            ensureFileExists();
+
+            List<Task> out;
+            if (BinaryCodec.isBinary(file)) {
+                format = Format.BINARY;
+                out = BinaryCodec.read(file);
+            } else {
+                if (Files.size(file) > 0) {
+                    format = Format.TEXT;
                 }
-                out.add(t);
+                out = TaskCodec.read(file);
             }
-            return out;
+
+            if (Files.notExists(rotatedJournal) && Files.notExists(journal.getFile())) {
+                return out;
+            }
+            List<Task> replayed = new ArrayList<>(out);
+            Journal.replay(rotatedJournal, replayed);
+            Journal.replay(journal.getFile(), replayed);
+            return replayed;
 
         } catch (IOException ex) {
             throw new WowoException("Unable to load data: " + ex.getMessage(), ex);
@@ -111,27 +193,271 @@ public final class Storage {
 
     /**
      * Saves the given tasks to disk, overwriting existing content.
+     * Any journal is dropped since the new snapshot already contains its changes.
      *
      * @param tasks tasks to save
      * @throws WowoException if an I/O error happens
      */
     public void save(List<Task> tasks) throws WowoException {
         try {
+            awaitCompaction();
             ensureFileExists();
-            List<String> lines = new ArrayList<>();
-            for (Task t : tasks) {
-                lines.add(t.serialize());
+            journal.discardPending();
+            StorageEvent event = new StorageEvent();
+            event.begin();
+            long bytes = writeSnapshot(savedFile, tasks.size(), enc -> {
+                for (Task t : tasks) {
+                    enc.writeTask(t);
+                }
+            });
+            event.end();
+            if (event.shouldCommit()) {
+                traced(event, "save", bytes, tasks.size());
+            }
+        } catch (IOException ex) {
+            throw new WowoException("Unable to save data: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Makes the current state of the list durable. In journaled mode only the changes recorded
+     * since the last commit are appended; otherwise the whole list is saved.
+     *
+     * @param tasks the current tasks, used when a new snapshot is needed
+     * @throws WowoException if an I/O error happens
+     */
+    public void commit(List<Task> tasks) throws WowoException {
+        if (!journaled) {
+            save(tasks);
+            return;
+        }
+        try {
+            appendJournal(drainJournal(), false);
+            if (needsCompaction()) {
+                compact(serializeAll(tasks));
+            }
+        } catch (IOException ex) {
+            throw new WowoException("Unable to save data: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Takes the journal records recorded since the last call. Must be called from the thread
+     * that changes the task list.
+     *
+     * @return the records, possibly empty
+     */
+    String drainJournal() {
+        return journal.drainPending();
+    }
+
+    /**
+     * Appends records taken by {@link #drainJournal()} to the journal file.
+     *
+     * @param records the records
+     * @param force whether to fsync the journal afterwards
+     * @throws IOException if the append fails
+     */
+    void appendJournal(String records, boolean force) throws IOException {
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        long before = journal.bytesAppended();
+        journal.append(records, force);
+        event.end();
+        if (event.shouldCommit()) {
+            traced(event, "journal", journal.bytesAppended() - before, -1);
+        }
+    }
+
+    private void traced(StorageEvent event, String operation, long bytes, int records) {
+        event.operation = operation;
+        event.path = file.toString();
+        event.bytes = bytes;
+        event.records = records;
+        event.commit();
+    }
+
+    /**
+     * Returns the bytes written to snapshots and journal since this storage was created.
+     *
+     * @return bytes written
+     */
+    public long bytesWritten() {
+        return snapshotBytes.get() + journal.bytesAppended();
+    }
+
+    /**
+     * Tells whether the journal is big enough to be folded into a new snapshot.
+     *
+     * @return true if a compaction should be started
+     */
+    boolean needsCompaction() {
+        return journaled && journal.size() >= compactThreshold && !isCompacting();
+    }
+
+    /**
+     * Moves the journal aside and writes a snapshot of {@code lines} in the background.
+     * {@code lines} must reflect exactly the records appended so far.
+     *
+     * @param lines the serialized tasks
+     * @throws IOException if the journal cannot be moved aside
+     */
+    void compact(List<String> lines) throws IOException {
+        if (isCompacting()) {
+            return;
+        }
+        journal.rotateTo(rotatedJournal);
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(r -> {
+                Thread th = new Thread(r, "wowo-compactor");
+                th.setDaemon(true);
+                return th;
+            });
+        }
+        compaction = compactor.submit(() -> {
+            StorageEvent event = new StorageEvent();
+            event.begin();
+            long bytes = writeSnapshot(compactFile, lines.size(), enc -> {
+                for (String line : lines) {
+                    enc.writeLine(line);
+                }
+            });
+            event.end();
+            if (event.shouldCommit()) {
+                traced(event, "compact", bytes, lines.size());
             }
-            Files.write(
-                    file,
-                    lines,
-                    StandardCharsets.UTF_8,
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING,
-                    StandardOpenOption.WRITE
-            );
+            return null;
+        });
+    }
+
+    /**
+     * Waits for a running compaction so that nothing is left half-done on exit.
+     *
+     * @throws WowoException if the compaction failed
+     */
+    public void close() throws WowoException {
+        try {
+            awaitCompaction();
+            journal.close();
         } catch (IOException ex) {
             throw new WowoException("Unable to save data: " + ex.getMessage(), ex);
+        } finally {
+            if (compactor != null) {
+                compactor.shutdown();
+            }
+        }
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        if (journaled) {
+            journal.taskAdded(task);
+        }
+    }
+
+    @Override
+    public void taskDeleted(int n) {
+        if (journaled) {
+            journal.taskDeleted(n);
+        }
+    }
+
+    @Override
+    public void tasksDeleted(int[] ns) {
+        if (journaled) {
+            journal.tasksDeleted(ns);
+        }
+    }
+
+    @Override
+    public void taskMarked(int n, boolean done) {
+        if (journaled) {
+            journal.taskMarked(n, done);
+        }
+    }
+
+    @Override
+    public void tasksSortedByDate() {
+        if (journaled) {
+            journal.tasksSortedByDate();
+        }
+    }
+
+    @Override
+    public void tasksSortedByName() {
+        if (journaled) {
+            journal.tasksSortedByName();
+        }
+    }
+
+    static List<String> serializeAll(List<Task> tasks) {
+        List<String> lines = new ArrayList<>(tasks.size());
+        for (Task t : tasks) {
+            lines.add(t.serialize());
+        }
+        return lines;
+    }
+
+    private boolean isCompacting() {
+        Future<?> c = compaction;
+        return c != null && !c.isDone();
+    }
+
+    private void awaitCompaction() throws IOException {
+        Future<?> c = compaction;
+        if (c == null) {
+            return;
+        }
+        try {
+            c.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compacting the journal", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Journal compaction failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            compaction = null;
+        }
+    }
+
+    /**
+     * Writes a full snapshot and retires the journal(s) it covers.
+     * The rename to {@code commitFile} is the commit point.
+     *
+     * @return the size of the snapshot in bytes
+     */
+    private long writeSnapshot(Path commitFile, int count, SnapshotBody body) throws IOException {
+        long bytes;
+        RecordSink sink = format == Format.BINARY ? binaryEncoder : textEncoder;
+        try (FileChannel ch = FileChannel.open(snapshotTmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            sink.begin(ch, count);
+            body.writeTo(sink);
+            sink.finish();
+            ch.force(true);
+            bytes = ch.size();
+        }
+        snapshotBytes.addAndGet(bytes);
+        Files.move(snapshotTmp, commitFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        finishSnapshot(commitFile);
+        return bytes;
+    }
+
+    /** Deletes the journals a committed snapshot covers, then moves the snapshot into place. */
+    private void finishSnapshot(Path commitFile) throws IOException {
+        Files.deleteIfExists(rotatedJournal);
+        if (commitFile.equals(savedFile)) {
+            journal.reset();
+        }
+        Files.move(commitFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void recoverCompaction() throws IOException {
+        Files.deleteIfExists(snapshotTmp);
+        if (Files.exists(savedFile)) {
+            finishSnapshot(savedFile);
+        } else if (Files.exists(compactFile)) {
+            finishSnapshot(compactFile);
         }
     }
 
@@ -156,11 +482,39 @@ public final class Storage {
         }
     }
 
-    private static LocalDate parseIsoDate(String raw) throws WowoException {
-        try {
-            return LocalDate.parse(raw.trim()); // expects yyyy-MM-dd
-        } catch (DateTimeParseException e) {
-            throw new WowoException("Invalid date in data file: " + raw, e);
+    /**
+     * Converts a data file to the given format. The result holds the same tasks,
+     * including any journal left next to the source.
+     *
+     * @param source the data file to read, in either format
+     * @param target the file to write
+     * @param format the format of {@code target}
+     * @throws WowoException if reading or writing fails
+     */
+    public static void convert(Path source, Path target, Format format) throws WowoException {
+        if (Files.notExists(source)) {
+            throw new WowoException("Unable to load data: " + source + " does not exist");
         }
+        List<Task> tasks = new Storage(source).load();
+        Storage out = new Storage(target);
+        out.setFormat(format);
+        out.save(tasks);
+    }
+
+    /** Writes the records of a snapshot. */
+    private interface SnapshotBody {
+        void writeTo(RecordSink sink) throws IOException;
+    }
+
+    /** Encodes snapshot records in one of the {@link Format}s. */
+    interface RecordSink {
+        void begin(FileChannel out, int count) throws IOException;
+
+        void writeTask(Task t) throws IOException;
+
+        /** Writes a record already serialized by {@link Task#serialize()}. */
+        void writeLine(String line) throws IOException;
+
+        void finish() throws IOException;
     }
 }
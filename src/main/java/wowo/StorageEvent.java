@@ -0,0 +1,37 @@
+package wowo;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a storage operation: a load, a full save, a compaction or a
+ * journal append. Off unless a recording enables {@code wowo.Storage}.
+ */
+@Name("wowo.Storage")
+@Label("Storage I/O")
+@Category({"Wowo", "Storage"})
+@Enabled(false)
+@StackTrace(false)
+final class StorageEvent extends Event {
+    @Label("Operation")
+    @Description("load, save, compact or journal")
+    String operation;
+
+    @Label("Path")
+    String path;
+
+    @Label("Bytes")
+    @Description("Bytes read for a load, bytes written otherwise")
+    @DataAmount
+    long bytes;
+
+    @Label("Records")
+    @Description("Tasks loaded or saved; -1 for a journal append or a failed load")
+    int records;
+}
@@ -6,6 +6,8 @@ package wowo;
 public abstract class Task {
     private final String name;
     private boolean done;
+    /** The line {@link #toString()} last built; only the done flag can make it stale. */
+    private String line;
 
     /**
      * Creates a task with a given name
@@ -28,6 +30,7 @@ public abstract class Task {
      */
     public void markDone() {
         this.done = true;
+        this.line = null;
     }
 
     /**
@@ -35,6 +38,7 @@ public abstract class Task {
      */
     public void markUndone() {
         this.done = false;
+        this.line = null;
     }
 
     /**
@@ -57,12 +61,16 @@ public abstract class Task {
         return name;
     }
 
+    public boolean isDone() {
+        return done;
+    }
+
     /**
      * Serialize task into a pipe-delimited record for disk storage purpose
      * @return the serialized record
      */
     public String serialize() {
-        return String.format("%s|%d|%s", getType(), done ? 1 : 0, name);
+        return getType() + (done ? "|1|" : "|0|") + name;
     }
 
     /**
@@ -74,8 +82,20 @@ public abstract class Task {
         return name.toLowerCase().contains(keyword.toLowerCase());
     }
 
+    /**
+     * Renders the task as one line of a list. The line is built once and kept until the
+     * task is marked or unmarked, so listing the same tasks again does not reformat dates.
+     * The kept line is checked against the done flag, so a query rendering the task while
+     * another thread marks it cannot leave a stale line behind.
+     */
     @Override
     public String toString() {
-        return "[" + getType() + "] " + "[" + statusIcon() + "] " + name + extraString();
+        String s = line;
+        // "[T] [X] name": the status icon is the sixth character
+        if (s == null || s.charAt(5) != statusIcon().charAt(0)) {
+            s = "[" + getType() + "] " + "[" + statusIcon() + "] " + name + extraString();
+            line = s;
+        }
+        return s;
     }
 }
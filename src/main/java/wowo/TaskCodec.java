@@ -0,0 +1,524 @@
+package wowo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Reads and writes the pipe-delimited data file without going through intermediate strings.
+ * <p>Reading maps the file and splits each line on {@code |} by hand, trimming whitespace
+ * around the pipes exactly like {@code line.split("\\s*\\|\\s*")} does. Writing encodes
+ * tasks straight into a reusable direct buffer. The bytes written are the same as
+ * {@link Task#serialize()} followed by the platform line separator.
+ * <p>A file of at least {@code wowo.parallelLoadBytes} bytes (4 MiB by default) is cut into chunks
+ * at line starts, which are decoded in parallel on the common fork-join pool and joined in file
+ * order, so every task keeps its position.
+ */
+final class TaskCodec {
+    /** Files smaller than this are read into a heap buffer instead of being mapped. */
+    private static final int MAP_THRESHOLD = 64 * 1024;
+    /** Files smaller than this are decoded on the calling thread. */
+    private static final long PARALLEL_THRESHOLD = Long.getLong("wowo.parallelLoadBytes", 4L << 20);
+    /** Chunks per pool thread, so a thread that finishes early can take another. */
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int MAX_FIELDS = 5;
+    private static final byte[] LINE_SEP = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private TaskCodec() {}
+
+    /**
+     * Reads all tasks from a data file.
+     *
+     * @param file the data file, which must exist
+     * @return the tasks in file order
+     * @throws IOException if the file cannot be read
+     * @throws WowoException if a record has an invalid date or the file is not valid UTF-8
+     */
+    static List<Task> read(Path file) throws IOException, WowoException {
+        ByteBuffer buf = readAll(file);
+        if (buf.limit() >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return decodeParallel(buf, ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD);
+        }
+        return decode(buf, 0, buf.limit(), new ArrayList<>());
+    }
+
+    /**
+     * Reads a whole file: a small one into a heap buffer, a larger one by mapping it.
+     *
+     * @param file the file, which must exist
+     * @return the content, from 0 to the limit
+     * @throws IOException if the file cannot be read
+     */
+    static ByteBuffer readAll(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Data file too large: " + size + " bytes");
+            }
+            if (size >= MAP_THRESHOLD) {
+                return ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer buf = ByteBuffer.allocate((int) size);
+            while (buf.hasRemaining() && ch.read(buf) >= 0) {
+                // keep reading
+            }
+            return buf.flip();
+        }
+    }
+
+    /**
+     * Decodes the whole buffer in up to {@code chunks} pieces on the common fork-join pool.
+     * The tasks come out in file order, and the error raised is the one the sequential
+     * decoder would have met first.
+     *
+     * @param buf buffer holding the file content; only read with absolute gets
+     * @param chunks how many pieces to cut the file into
+     * @return the tasks in file order
+     * @throws WowoException if a record has an invalid date or the file is not valid UTF-8
+     */
+    static List<Task> decodeParallel(ByteBuffer buf, int chunks) throws WowoException {
+        int[] bounds = lineBounds(buf, chunks);
+        List<ForkJoinTask<List<Task>>> parts = new ArrayList<>(bounds.length - 1);
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            int from = bounds[i];
+            int to = bounds[i + 1];
+            parts.add(ForkJoinPool.commonPool().submit(() -> decode(buf, from, to, new ArrayList<>())));
+        }
+        List<List<Task>> decoded = new ArrayList<>(parts.size());
+        int total = 0;
+        for (ForkJoinTask<List<Task>> part : parts) {
+            try {
+                List<Task> chunk = part.get();
+                decoded.add(chunk);
+                total += chunk.size();
+            } catch (ExecutionException e) {
+                // The pool wraps checked exceptions, sometimes more than once
+                for (Throwable c = e.getCause(); c != null; c = c.getCause()) {
+                    if (c instanceof WowoException w) {
+                        throw w;
+                    }
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WowoException("Interrupted while loading", e);
+            }
+        }
+        List<Task> out = new ArrayList<>(total);
+        for (List<Task> chunk : decoded) {
+            out.addAll(chunk);
+        }
+        return out;
+    }
+
+    /**
+     * Cuts the buffer into about {@code chunks} ranges that each start at a line start.
+     *
+     * @return ascending offsets, starting at 0 and ending at the buffer limit
+     */
+    private static int[] lineBounds(ByteBuffer buf, int chunks) {
+        int size = buf.limit();
+        int[] bounds = new int[chunks + 1];
+        int n = 1;
+        for (int k = 1; k < chunks; k++) {
+            int at = Math.max((int) ((long) size * k / chunks), bounds[n - 1]);
+            while (at < size && buf.get(at) != '\n') {
+                at++;
+            }
+            if (at + 1 >= size) {
+                break;
+            }
+            if (at + 1 > bounds[n - 1]) {
+                bounds[n++] = at + 1;
+            }
+        }
+        bounds[n++] = size;
+        return Arrays.copyOf(bounds, n);
+    }
+
+    /**
+     * Decodes the lines in {@code buf[from, to)} and adds the tasks to {@code out}.
+     * Blank, unknown and truncated lines are skipped, like the text loader does. Lines with
+     * non-ASCII bytes are checked to be valid UTF-8, skipped or not, so a damaged file is
+     * rejected as reading it as text would, rather than loaded with replacement characters.
+     *
+     * @param buf buffer holding the file content
+     * @param from index of the first byte of a line
+     * @param to index just past the last byte to decode
+     * @param out list the decoded tasks are added to
+     * @return {@code out}
+     * @throws WowoException if a record has an invalid date or a line is not valid UTF-8
+     */
+    static List<Task> decode(ByteBuffer buf, int from, int to, List<Task> out) throws WowoException {
+        RecordReader reader = new RecordReader();
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = lineStart;
+            boolean ascii = true;
+            while (lineEnd < to) {
+                byte b = buf.get(lineEnd);
+                if (b == '\n' || b == '\r') {
+                    break;
+                }
+                ascii &= b >= 0;
+                lineEnd++;
+            }
+            Task t = reader.decode(buf, lineStart, lineEnd, !ascii);
+            if (t != null) {
+                out.add(t);
+            }
+            lineStart = lineEnd + 1;
+            if (lineEnd < to && buf.get(lineEnd) == '\r' && lineStart < to && buf.get(lineStart) == '\n') {
+                lineStart++;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Splits one line on pipes, trimming whitespace on both sides of every pipe.
+     * Trailing empty fields are dropped and a blank line has no fields.
+     *
+     * @return number of fields found, at most {@link #MAX_FIELDS}
+     */
+    private static int split(ByteBuffer buf, int from, int to, int[] starts, int[] ends) {
+        if (isBlank(buf, from, to)) {
+            return 0;
+        }
+        int n = 0;
+        int fieldStart = from;
+        for (int i = from; i <= to && n < MAX_FIELDS; i++) {
+            if (i == to || buf.get(i) == '|') {
+                int end = i;
+                if (i < to) {
+                    while (end > fieldStart && isSpace(buf.get(end - 1))) {
+                        end--;
+                    }
+                }
+                starts[n] = fieldStart;
+                ends[n] = end;
+                n++;
+                fieldStart = i + 1;
+                while (fieldStart < to && isSpace(buf.get(fieldStart))) {
+                    fieldStart++;
+                }
+                i = fieldStart - 1;
+            }
+        }
+        if (!onlyPipesAndSpaces(buf, fieldStart, to)) {
+            // More fields follow, so the ones kept are not trailing
+            return n;
+        }
+        while (n > 0 && starts[n - 1] == ends[n - 1]) {
+            n--;
+        }
+        return n;
+    }
+
+    private static Task toTask(ByteBuffer buf, int fields, int[] starts, int[] ends, byte[] scratch)
+            throws WowoException {
+        if (ends[0] - starts[0] != 1) {
+            return null;
+        }
+        byte type = buf.get(starts[0]);
+        boolean done = ends[1] - starts[1] == 1 && buf.get(starts[1]) == '1';
+        String name = utf8(buf, starts[2], ends[2], scratch);
+
+        Task t;
+        switch (type) {
+        case 'T':
+            t = new Todo(name);
+            break;
+        case 'D':
+            if (fields < 4) {
+                return null;
+            }
+            t = new Deadline(name, date(buf, starts[3], ends[3], scratch));
+            break;
+        case 'E':
+            if (fields < 5) {
+                return null;
+            }
+            t = new Event(name, date(buf, starts[3], ends[3], scratch), date(buf, starts[4], ends[4], scratch));
+            break;
+        default:
+            return null;
+        }
+        if (done) {
+            t.markDone();
+        }
+        return t;
+    }
+
+    /** Decodes a field of a line already known to be valid UTF-8. */
+    private static String utf8(ByteBuffer buf, int from, int to, byte[] scratch) {
+        int len = to - from;
+        byte[] bytes = len <= scratch.length ? scratch : new byte[len];
+        buf.get(from, bytes, 0, len);
+        return new String(bytes, 0, len, StandardCharsets.UTF_8);
+    }
+
+    /** Parses {@code yyyy-MM-dd} directly; anything else goes through {@link LocalDate#parse}. */
+    private static LocalDate date(ByteBuffer buf, int from, int to, byte[] scratch) throws WowoException {
+        int s = from;
+        int e = to;
+        while (s < e && isSpace(buf.get(s))) {
+            s++;
+        }
+        while (e > s && isSpace(buf.get(e - 1))) {
+            e--;
+        }
+        if (e - s == 10 && buf.get(s + 4) == '-' && buf.get(s + 7) == '-') {
+            int y = digits(buf, s, 4);
+            int m = digits(buf, s + 5, 2);
+            int d = digits(buf, s + 8, 2);
+            if (y >= 0 && m >= 0 && d >= 0) {
+                try {
+                    return LocalDate.of(y, m, d);
+                } catch (DateTimeException ex) {
+                    // fall through so the error reads the same as the text loader's
+                }
+            }
+        }
+        String raw = utf8(buf, from, to, scratch);
+        try {
+            return LocalDate.parse(raw.trim());
+        } catch (DateTimeParseException ex) {
+            throw new WowoException("Invalid date in data file: " + raw, ex);
+        }
+    }
+
+    private static int digits(ByteBuffer buf, int from, int count) {
+        int v = 0;
+        for (int i = from; i < from + count; i++) {
+            int c = buf.get(i) - '0';
+            if (c < 0 || c > 9) {
+                return -1;
+            }
+            v = v * 10 + c;
+        }
+        return v;
+    }
+
+    private static boolean isBlank(ByteBuffer buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isSpace(buf.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean onlyPipesAndSpaces(ByteBuffer buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buf.get(i);
+            if (b != '|' && !isSpace(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Same set as the regex {@code \s}. */
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+
+    /**
+     * Encodes records into a direct buffer that is reused between saves and drained
+     * into a channel whenever it fills up.
+     */
+    /**
+     * Decodes one record at a time with the same tokenizer as the data file, e.g. for journal
+     * replay. It reuses its scratch arrays, so each thread needs its own.
+     */
+    static final class RecordReader {
+        private final int[] starts = new int[MAX_FIELDS];
+        private final int[] ends = new int[MAX_FIELDS];
+        private final byte[] scratch = new byte[256];
+        private CharsetDecoder utf8;
+
+        /**
+         * Decodes the record in {@code buf[from, to)}, which holds no line break.
+         *
+         * @return the task, or null if the record is blank, unknown or truncated
+         * @throws WowoException if the record has an invalid date or is not valid UTF-8
+         */
+        Task read(ByteBuffer buf, int from, int to) throws WowoException {
+            boolean ascii = true;
+            for (int i = from; i < to && ascii; i++) {
+                ascii = buf.get(i) >= 0;
+            }
+            return decode(buf, from, to, !ascii);
+        }
+
+        /**
+         * Decodes a record held in a string, such as {@link Task#serialize()} returns.
+         *
+         * @return the task, or null if the record is blank, unknown or truncated
+         * @throws WowoException if the record has an invalid date
+         */
+        Task read(String record) throws WowoException {
+            byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+            // Encoded from a string, so it is valid UTF-8
+            return decode(ByteBuffer.wrap(bytes), 0, bytes.length, false);
+        }
+
+        private Task decode(ByteBuffer buf, int from, int to, boolean checkUtf8) throws WowoException {
+            if (checkUtf8) {
+                if (utf8 == null) {
+                    utf8 = StandardCharsets.UTF_8.newDecoder()
+                            .onMalformedInput(CodingErrorAction.REPORT)
+                            .onUnmappableCharacter(CodingErrorAction.REPORT);
+                }
+                try {
+                    utf8.reset().decode(buf.slice(from, to - from));
+                } catch (CharacterCodingException e) {
+                    throw new WowoException("Unable to load data: the data file is not valid UTF-8 at byte " + from, e);
+                }
+            }
+            int fields = split(buf, from, to, starts, ends);
+            return fields < 3 ? null : toTask(buf, fields, starts, ends, scratch);
+        }
+    }
+
+    static final class Encoder implements Storage.RecordSink {
+        private static final int CAPACITY = 64 * 1024;
+
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(CAPACITY);
+        private final CharsetEncoder utf8 = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        private FileChannel out;
+
+        @Override
+        public void begin(FileChannel out, int count) {
+            this.out = out;
+            buf.clear();
+        }
+
+        @Override
+        public void writeTask(Task t) throws IOException {
+            ensure(4);
+            buf.put((byte) t.getType().charAt(0)).put((byte) '|').put((byte) (t.isDone() ? '1' : '0'))
+                    .put((byte) '|');
+            writeString(t.getName());
+            if (t instanceof Deadline d) {
+                writeDate(d.getDue());
+            } else if (t instanceof Event e) {
+                writeDate(e.getFrom());
+                writeDate(e.getTo());
+            }
+            writeLineEnd();
+        }
+
+        @Override
+        public void writeLine(String line) throws IOException {
+            writeString(line);
+            writeLineEnd();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            drain();
+            out = null;
+        }
+
+        private void writeDate(LocalDate date) throws IOException {
+            int y = date.getYear();
+            if (y < 0 || y > 9999) {
+                ensure(1);
+                buf.put((byte) '|');
+                writeString(date.toString());
+                return;
+            }
+            ensure(11);
+            buf.put((byte) '|');
+            putDigits(y, 4);
+            buf.put((byte) '-');
+            putDigits(date.getMonthValue(), 2);
+            buf.put((byte) '-');
+            putDigits(date.getDayOfMonth(), 2);
+        }
+
+        private void putDigits(int v, int width) {
+            int pos = buf.position();
+            for (int i = width - 1; i >= 0; i--) {
+                buf.put(pos + i, (byte) ('0' + v % 10));
+                v /= 10;
+            }
+            buf.position(pos + width);
+        }
+
+        private void writeLineEnd() throws IOException {
+            ensure(LINE_SEP.length);
+            buf.put(LINE_SEP);
+        }
+
+        private void writeString(String s) throws IOException {
+            boolean ascii = s.length() <= buf.capacity();
+            for (int i = 0; i < s.length() && ascii; i++) {
+                ascii = s.charAt(i) < 0x80;
+            }
+            if (ascii) {
+                ensure(s.length());
+                for (int i = 0; i < s.length(); i++) {
+                    buf.put((byte) s.charAt(i));
+                }
+                return;
+            }
+            CharBuffer in = CharBuffer.wrap(s);
+            utf8.reset();
+            while (true) {
+                CoderResult r = in.hasRemaining() ? utf8.encode(in, buf, true) : utf8.flush(buf);
+                if (r.isOverflow()) {
+                    drain();
+                } else if (r.isError()) {
+                    try {
+                        r.throwException();
+                    } catch (CharacterCodingException ex) {
+                        throw new IOException("Cannot encode task name: " + ex.getMessage(), ex);
+                    }
+                } else if (!in.hasRemaining()) {
+                    if (utf8.flush(buf).isOverflow()) {
+                        drain();
+                        continue;
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void ensure(int n) throws IOException {
+            if (buf.remaining() < n) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                out.write(buf);
+            }
+            buf.clear();
+        }
+    }
+}
@@ -1,38 +1,187 @@
 package wowo;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.time.LocalDate;
-import java.util.Comparator;
 
 /**
  * A list for all task managed by the chatbot
+ * <p>A concurrent list may be shared between threads: changes are serialized by a write lock,
+ * queries share a read lock and return copies of the tasks, and {@link #asList()} hands out
+ * immutable snapshots.
  */
 public class TaskList {
-    private final List<Task> tasks = new ArrayList<>();
+    /** How the tasks are stored by position. */
+    public enum Backing {
+        /** Array list: fastest to read, but a delete shifts every task after it. */
+        ARRAY,
+        /** Order-statistic tree: O(log n) get, add and delete at any position. */
+        TREE,
+        /**
+         * Columnar {@link TaskStore}: a fraction of the heap per task, but tasks are rebuilt on
+         * every read and searches scan the list instead of keeping indexes.
+         */
+        COMPACT
+    }
+
+    private final List<Task> tasks;
+    /** False for a compact list, whose task views cannot be held by identity-keyed indexes. */
+    private final boolean indexed;
+    private final TrigramIndex nameIndex = new TrigramIndex();
+    private final DateIndex dateIndex = new DateIndex();
+    private final IntervalTree events = new IntervalTree();
+    private final SortedViews sorted = new SortedViews();
+    /** Null unless the list is concurrent. */
+    private final ReentrantReadWriteLock lock;
+    /**
+     * Copies of the tasks in list order, kept up to date by every change; null unless concurrent.
+     * Published snapshots read the first {@link #copiesSize} slots.
+     */
+    private Task[] copies;
+    private int copiesSize;
+    /** Whether a published snapshot reads {@link #copies}, so a change must copy the array first. */
+    private boolean copiesShared;
+    /** The snapshot of the current tasks, or null if there was a change since the last one was taken. */
+    private volatile Snapshot snapshot;
+    private final Object publishLock = new Object();
+    private ChangeListener listener;
 
     /**
      * Initiate an empty list of tasks
      */
-    public TaskList() { }
+    public TaskList() {
+        this(Backing.ARRAY);
+    }
+
+    /**
+     * Initiate an empty list of tasks with the given backing
+     * @param backing how the tasks are stored
+     */
+    public TaskList(Backing backing) {
+        this(backing, false);
+    }
+
+    /**
+     * Initiate an empty list of tasks with the given backing, optionally safe to share between threads
+     * @param backing how the tasks are stored
+     * @param concurrent whether changes and queries may come from several threads at once
+     */
+    public TaskList(Backing backing, boolean concurrent) {
+        switch (backing) {
+        case TREE:
+            this.tasks = new RankedList<>();
+            break;
+        case COMPACT:
+            this.tasks = new TaskStore();
+            break;
+        default:
+            this.tasks = new ArrayList<>();
+            break;
+        }
+        this.indexed = backing != Backing.COMPACT;
+        this.lock = concurrent ? new ReentrantReadWriteLock() : null;
+        this.copies = concurrent ? new Task[0] : null;
+    }
 
     /**
      * Initiate a task list with an initial value
      * @param init task that initiate
      */
     public TaskList(List<Task> init) {
+        this(Backing.ARRAY);
         if (init != null) {
             tasks.addAll(init);
+            reindexAll();
+        }
+    }
+
+    /**
+     * Registers the listener that is told about every mutation, e.g. a storage journal
+     * @param listener the listener, or {@code null} to stop notifying
+     */
+    public void setListener(ChangeListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Replace the content of the list with tasks read from storage.
+     * The listener is not notified since the tasks are already on disk.
+     * @param loaded tasks to load
+     */
+    public void loadAll(List<Task> loaded) {
+        lockWrites();
+        try {
+            tasks.clear();
+            tasks.addAll(loaded);
+            reindexAll();
+            snapshotRebuilt();
+        } finally {
+            unlockWrites();
+        }
+    }
+
+    /**
+     * Append tasks read from storage after those already loaded, so a large file can be
+     * published in chunks. The listener is not notified since the tasks are already on disk.
+     * @param chunk tasks to append
+     */
+    public void loadMore(List<Task> chunk) {
+        lockWrites();
+        try {
+            tasks.addAll(chunk);
+            for (Task t : chunk) {
+                index(t);
+                snapshotAppended(t);
+            }
+        } finally {
+            unlockWrites();
         }
     }
 
+    /**
+     * Returns the tasks in list order. A plain list gives a live read-only view; a concurrent
+     * list gives an immutable snapshot holding copies of the tasks, so it can be read or saved
+     * while other threads keep changing the list. The copies are kept up to date by each change
+     * and a snapshot is only published by the first call after a change, so a run of changes
+     * without reads in between never copies the list.
+     * @return the tasks
+     */
     public List<Task> asList() {
-        return Collections.unmodifiableList(tasks);
+        if (lock == null) {
+            return Collections.unmodifiableList(tasks);
+        }
+        Snapshot s = snapshot;
+        if (s != null) {
+            return s;
+        }
+        lockReads();
+        try {
+            synchronized (publishLock) {
+                if (snapshot == null) {
+                    copiesShared = true;
+                    snapshot = new Snapshot(copies, copiesSize);
+                }
+                return snapshot;
+            }
+        } finally {
+            unlockReads();
+        }
     }
 
     public int size() {
-        return tasks.size();
+        lockReads();
+        try {
+            return tasks.size();
+        } finally {
+            unlockReads();
+        }
     }
 
     /**
@@ -41,13 +190,28 @@ public class TaskList {
      * @return the task
      */
     public Task add(Task task) {
-        tasks.add(task);
-        return task;
+        lockWrites();
+        try {
+            tasks.add(task);
+            index(task);
+            snapshotAppended(task);
+            if (listener != null) {
+                listener.taskAdded(task);
+            }
+            return task;
+        } finally {
+            unlockWrites();
+        }
     }
 
     public Task getTask(int n) throws InvalidTaskIndexException {
-        checkIndexRange(n);
-        return tasks.get(n - 1);
+        lockReads();
+        try {
+            checkIndexRange(n);
+            return tasks.get(n - 1);
+        } finally {
+            unlockReads();
+        }
     }
 
     /**
@@ -57,8 +221,90 @@ public class TaskList {
      * @throws InvalidTaskIndexException if the index does not point to a task
      */
     public Task deleteOneBased(int n) throws InvalidTaskIndexException {
-        checkIndexRange(n);
-        return tasks.remove(n - 1);
+        lockWrites();
+        try {
+            checkIndexRange(n);
+            Task removed = tasks.remove(n - 1);
+            unindex(removed);
+            snapshotRemoved(new int[] {n});
+            if (listener != null) {
+                listener.taskDeleted(n);
+            }
+            return removed;
+        } finally {
+            unlockWrites();
+        }
+    }
+
+    /**
+     * Delete several tasks in one pass over the list, rather than shifting it once per task
+     * @param ns the index numbers of the tasks, ascending and without repeats
+     * @return the tasks that got deleted, in list order
+     * @throws InvalidTaskIndexException if any index does not point to a task; nothing is deleted then
+     */
+    public List<Task> deleteAllOneBased(int[] ns) throws InvalidTaskIndexException {
+        lockWrites();
+        try {
+            return deleteAllIn(ns);
+        } finally {
+            unlockWrites();
+        }
+    }
+
+    private List<Task> deleteAllIn(int[] ns) throws InvalidTaskIndexException {
+        checkAscending(ns);
+        List<Task> removed = new ArrayList<>(ns.length);
+        List<Task> kept = new ArrayList<>(tasks.size() - ns.length);
+        int next = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            Task t = tasks.get(i);
+            if (next < ns.length && ns[next] == i + 1) {
+                removed.add(t);
+                next++;
+            } else {
+                kept.add(t);
+            }
+        }
+        tasks.clear();
+        tasks.addAll(kept);
+        for (Task t : removed) {
+            unindex(t);
+        }
+        snapshotRemoved(ns);
+        if (listener != null) {
+            listener.tasksDeleted(ns.clone());
+        }
+        return removed;
+    }
+
+    /**
+     * Mark or unmark several tasks
+     * @param ns the index numbers of the tasks, ascending and without repeats
+     * @param done whether to mark them as done or not done
+     * @return the changed tasks, in list order
+     * @throws InvalidTaskIndexException if any index does not point to a task; nothing is changed then
+     */
+    public List<Task> markAllOneBased(int[] ns, boolean done) throws InvalidTaskIndexException {
+        lockWrites();
+        try {
+            checkAscending(ns);
+            List<Task> changed = new ArrayList<>(ns.length);
+            for (int n : ns) {
+                changed.add(done ? markOneBased(n) : unmarkOneBased(n));
+            }
+            return changed;
+        } finally {
+            unlockWrites();
+        }
+    }
+
+    private void checkAscending(int[] ns) throws InvalidTaskIndexException {
+        for (int i = 0; i < ns.length; i++) {
+            checkIndexRange(ns[i]);
+            if (i > 0 && ns[i] <= ns[i - 1]) {
+                throw new IllegalArgumentException("Indices must be ascending: " + ns[i - 1] + ", " + ns[i]);
+            }
+        }
     }
 
     /**
@@ -68,9 +314,19 @@ public class TaskList {
      * @throws InvalidTaskIndexException if the index does not point to a task
      */
     public Task markOneBased(int n) throws InvalidTaskIndexException {
-        Task t = getTask(n);
-        t.markDone();
-        return t;
+        lockWrites();
+        try {
+            Task t = getTask(n);
+            beforeChange(t);
+            t.markDone();
+            afterChange(n, t);
+            if (listener != null) {
+                listener.taskMarked(n, true);
+            }
+            return t;
+        } finally {
+            unlockWrites();
+        }
     }
 
     /**
@@ -81,9 +337,35 @@ public class TaskList {
      * @throws InvalidTaskIndexException if the index does not point to a task
      */
     public Task unmarkOneBased(int n) throws InvalidTaskIndexException {
-        Task t = getTask(n);
-        t.markUndone();
-        return t;
+        lockWrites();
+        try {
+            Task t = getTask(n);
+            beforeChange(t);
+            t.markUndone();
+            afterChange(n, t);
+            if (listener != null) {
+                listener.taskMarked(n, false);
+            }
+            return t;
+        } finally {
+            unlockWrites();
+        }
+    }
+
+    private void beforeChange(Task t) {
+        if (indexed) {
+            sorted.beforeChange(t);
+        }
+    }
+
+    private void afterChange(int n, Task t) {
+        if (indexed) {
+            sorted.afterChange(t);
+        } else {
+            // A compact list handed out a copy; store the change back
+            tasks.set(n - 1, t);
+        }
+        snapshotReplaced(n, t);
     }
 
     private void checkIndexRange(int n) throws InvalidTaskIndexException {
@@ -93,46 +375,300 @@ public class TaskList {
     }
 
     /**
-     * Returns a list of tasks that match with the keyword
+     * Returns a list of tasks that match with the keyword, in list order.
+     * Only tasks sharing every trigram of the keyword are checked.
      *
      * @param keyword search term
      * @return list of matching tasks
      */
     public List<Task> find(String keyword) {
-        List<Task> out = new ArrayList<>();
+        TaskListEvent event = new TaskListEvent();
+        event.begin();
+        lockReads();
+        try {
+            return traced(event, "find", detached(findIn(keyword)));
+        } finally {
+            unlockReads();
+        }
+    }
+
+    private List<Task> findIn(String keyword) {
+        if (!indexed) {
+            List<Task> out = new ArrayList<>();
+            for (Task t : tasks) {
+                if (t.matches(keyword)) {
+                    out.add(t);
+                }
+            }
+            return out;
+        }
+        return nameIndex.find(keyword, tasks);
+    }
+
+    /**
+     * Returns deadlines due and events starting or ending within a range of days, in date order
+     *
+     * @param from first day, or {@code null} for no lower bound
+     * @param to last day, or {@code null} for no upper bound
+     * @return list of matching tasks
+     */
+    public List<Task> findByDate(LocalDate from, LocalDate to) {
+        TaskListEvent event = new TaskListEvent();
+        event.begin();
+        lockReads();
+        try {
+            return traced(event, "findByDate", detached(findByDateIn(from, to)));
+        } finally {
+            unlockReads();
+        }
+    }
+
+    private List<Task> findByDateIn(LocalDate from, LocalDate to) {
+        if (!indexed) {
+            DateIndex scan = new DateIndex();
+            scan.rebuild(tasks);
+            return scan.between(from, to);
+        }
+        return dateIndex.between(from, to);
+    }
+
+    /**
+     * Returns deadlines due on a day and events running on that day
+     *
+     * @param day the day
+     * @return list of matching tasks, deadlines first
+     */
+    public List<Task> findOn(LocalDate day) {
+        lockReads();
+        try {
+            List<Task> out = new ArrayList<>();
+            for (Task t : findByDate(day, day)) {
+                if (t instanceof Deadline) {
+                    out.add(t);
+                }
+            }
+            out.addAll(findOverlapping(day, day));
+            return out;
+        } finally {
+            unlockReads();
+        }
+    }
+
+    /**
+     * Returns the events overlapping a range of days, ordered by start date
+     *
+     * @param from first day of the range
+     * @param to last day of the range
+     * @return list of overlapping events
+     */
+    public List<Task> findOverlapping(LocalDate from, LocalDate to) {
+        TaskListEvent event = new TaskListEvent();
+        event.begin();
+        lockReads();
+        try {
+            return traced(event, "findOverlapping", detached(findOverlappingIn(from, to)));
+        } finally {
+            unlockReads();
+        }
+    }
+
+    private List<Task> findOverlappingIn(LocalDate from, LocalDate to) {
+        if (!indexed) {
+            List<Task> out = new ArrayList<>();
+            for (Task t : tasks) {
+                if (t instanceof Event e) {
+                    // Same bounds as the interval tree: an end before the start counts as the start
+                    LocalDate end = e.getTo().isBefore(e.getFrom()) ? e.getFrom() : e.getTo();
+                    if (!e.getFrom().isAfter(to) && !end.isBefore(from)) {
+                        out.add(e);
+                    }
+                }
+            }
+            out.sort(Comparator.comparing(t -> ((Event) t).getFrom()));
+            return out;
+        }
+        return new ArrayList<>(events.overlapping(from.toEpochDay(), to.toEpochDay()));
+    }
+
+    /**
+     * Estimates the heap spent per task by the list itself, without its search indexes.
+     * Object-backed lists are estimated from 64-bit compressed-reference object layouts;
+     * a compact list reports the actual size of its columns.
+     *
+     * @return bytes per task, or 0 when empty
+     */
+    public double bytesPerTask() {
+        lockReads();
+        try {
+            return bytesPerTaskIn();
+        } finally {
+            unlockReads();
+        }
+    }
+
+    private double bytesPerTaskIn() {
+        if (tasks instanceof TaskStore store) {
+            return store.bytesPerTask();
+        }
+        if (tasks.isEmpty()) {
+            return 0;
+        }
+        // An array list slot is one reference; a tree node has a header, four fields and two links
+        int slotBytes = tasks instanceof RankedList ? 32 : 4;
+        long bytes = 0;
+        for (Task t : tasks) {
+            bytes += TaskStore.objectBytes(t, slotBytes);
+        }
+        return (double) bytes / tasks.size();
+    }
+
+    private void index(Task t) {
+        if (!indexed) {
+            return;
+        }
+        nameIndex.add(t);
+        dateIndex.add(t);
+        sorted.add(t);
+        if (t instanceof Event e) {
+            events.add(e);
+        }
+    }
+
+    private void unindex(Task t) {
+        if (!indexed) {
+            return;
+        }
+        nameIndex.remove(t);
+        dateIndex.remove(t);
+        sorted.remove(t);
+        if (t instanceof Event e) {
+            events.remove(e);
+        }
+    }
+
+    private void reindexAll() {
+        if (!indexed) {
+            return;
+        }
+        nameIndex.rebuild(tasks);
+        dateIndex.rebuild(tasks);
+        sorted.rebuild(tasks);
+        events.clear();
         for (Task t : tasks) {
-            if (t.matches(keyword)) {
-                out.add(t);
+            if (t instanceof Event e) {
+                events.add(e);
             }
         }
-        return out;
     }
 
-    public void sortByName() {
-        // If Task has getName(), prefer that; otherwise fall back to toString()
-        tasks.sort(Comparator.comparing(
-                t -> (t instanceof TaskNameProvider)
-                        ? ((TaskNameProvider) t).getName()
-                        : t.toString(),
-                String.CASE_INSENSITIVE_ORDER
-        ));
+    /**
+     * Returns all tasks ordered by date (todos last) then by name, without reordering the list
+     *
+     * @return the tasks in that order
+     */
+    public List<Task> sortedByDateThenName() {
+        TaskListEvent event = new TaskListEvent();
+        event.begin();
+        lockReads();
+        try {
+            return traced(event, "sortedByDate", detached(byDateIn()));
+        } finally {
+            unlockReads();
+        }
     }
 
-    public void sortByDateThenName() {
-        tasks.sort(
-                Comparator
-                        .comparing(TaskList::dateOrMax) // deadlines/events by date; todos last
-                        .thenComparing(t -> (t instanceof TaskNameProvider)
-                                        ? ((TaskNameProvider) t).getName()
-                                        : t.toString(),
-                                String.CASE_INSENSITIVE_ORDER)
-        );
+    /**
+     * Returns all tasks ordered by name, without reordering the list
+     *
+     * @return the tasks in that order
+     */
+    public List<Task> sortedByName() {
+        TaskListEvent event = new TaskListEvent();
+        event.begin();
+        lockReads();
+        try {
+            return traced(event, "sortedByName", detached(byNameIn()));
+        } finally {
+            unlockReads();
+        }
+    }
+
+    private List<Task> byDateIn() {
+        return indexed ? sorted.byDate() : SortedViews.sortByDate(tasks);
+    }
+
+    private List<Task> byNameIn() {
+        return indexed ? sorted.byName() : SortedViews.sortByName(tasks);
+    }
+
+    /**
+     * Replaces the tasks of a query result with copies when the list is concurrent, so they can
+     * be rendered after the read lock is released. A compact list already hands out copies.
+     */
+    private List<Task> detached(List<Task> result) {
+        if (lock == null || !indexed) {
+            return result;
+        }
+        result.replaceAll(TaskList::copyOf);
+        return result;
+    }
+
+    /** Commits a query event if a recording wants it, and passes the result through. */
+    private List<Task> traced(TaskListEvent event, String operation, List<Task> result) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.inputSize = tasks.size();
+            event.resultSize = result.size();
+            event.commit();
+        }
+        return result;
+    }
+
+    /** Reorders the list to match an already sorted view, and returns it. */
+    private List<Task> reorder(List<Task> order) {
+        tasks.clear();
+        tasks.addAll(order);
+        snapshotRebuilt();
+        if (indexed) {
+            // Postings do not depend on order; only the ranks used to order matches change
+            nameIndex.reordered(tasks);
+        }
+        return order;
     }
 
-    private static LocalDate dateOrMax(Task t) {
-        if (t instanceof Deadline d) return d.getDue();
-        if (t instanceof Event e)    return e.getFrom();   // or e.getTo(), your call
-        return LocalDate.MAX; // Todo (no date) goes after dated tasks
+    /**
+     * Reorder the list by name, reading the order kept by the sorted view
+     */
+    public void sortByName() {
+        TaskListEvent event = new TaskListEvent();
+        event.begin();
+        lockWrites();
+        try {
+            traced(event, "sortByName", reorder(byNameIn()));
+            if (listener != null) {
+                listener.tasksSortedByName();
+            }
+        } finally {
+            unlockWrites();
+        }
+    }
+
+    /**
+     * Reorder the list by date (todos last) then by name, reading the order kept by the sorted view
+     */
+    public void sortByDateThenName() {
+        TaskListEvent event = new TaskListEvent();
+        event.begin();
+        lockWrites();
+        try {
+            traced(event, "sortByDate", reorder(byDateIn()));
+            if (listener != null) {
+                listener.tasksSortedByDate();
+            }
+        } finally {
+            unlockWrites();
+        }
     }
 
     /**
@@ -141,12 +677,169 @@ public class TaskList {
      * @param tasks to be added
      */
     public void addMany(Task... tasks) {
+        lockWrites();
+        try {
+            for (Task t : tasks) {
+                add(t);
+            }
+        } finally {
+            unlockWrites();
+        }
+    }
+
+    private void lockReads() {
+        if (lock != null) {
+            lock.readLock().lock();
+        }
+    }
+
+    private void unlockReads() {
+        if (lock != null) {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void lockWrites() {
+        if (lock != null) {
+            lock.writeLock().lock();
+        }
+    }
+
+    private void unlockWrites() {
+        if (lock != null) {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Keeps the copy of a task added at the end. It goes in the slot after the published ones,
+     * which no snapshot reads, so the slots are only copied when they run out.
+     */
+    private void snapshotAppended(Task t) {
+        if (lock == null) {
+            return;
+        }
+        if (copiesSize == copies.length) {
+            copies = Arrays.copyOf(copies, Math.max(16, copiesSize + (copiesSize >> 1)));
+            copiesShared = false;
+        }
+        copies[copiesSize++] = copyOf(t);
+        snapshot = null;
+    }
+
+    /** Drops the copies of tasks deleted at ascending one-based positions, in one pass. */
+    private void snapshotRemoved(int[] ns) {
+        if (lock == null) {
+            return;
+        }
+        ownCopies();
+        int to = ns[0] - 1;
+        int next = 0;
+        for (int from = to; from < copiesSize; from++) {
+            if (next < ns.length && ns[next] == from + 1) {
+                next++;
+            } else {
+                copies[to++] = copies[from];
+            }
+        }
+        Arrays.fill(copies, to, copiesSize, null);
+        copiesSize = to;
+        snapshot = null;
+    }
+
+    /** Replaces the copy of the task at a one-based position after it changed. */
+    private void snapshotReplaced(int n, Task t) {
+        if (lock == null) {
+            return;
+        }
+        ownCopies();
+        copies[n - 1] = copyOf(t);
+        snapshot = null;
+    }
+
+    /** Copies the whole list again, e.g. after a sort. */
+    private void snapshotRebuilt() {
+        if (lock == null) {
+            return;
+        }
+        Task[] fresh = new Task[tasks.size()];
+        int i = 0;
         for (Task t : tasks) {
-            add(t);
+            fresh[i++] = copyOf(t);
+        }
+        copies = fresh;
+        copiesSize = fresh.length;
+        copiesShared = false;
+        snapshot = null;
+    }
+
+    /** Gives the changes their own slots if the published snapshot reads the current ones. */
+    private void ownCopies() {
+        if (copiesShared) {
+            copies = Arrays.copyOf(copies, copies.length);
+            copiesShared = false;
+        }
+    }
+
+    /**
+     * Copies a task, so that marking it later does not show through a snapshot.
+     * Only the done flag of a task can change; everything else is final.
+     */
+    private static Task copyOf(Task t) {
+        Task copy;
+        if (t instanceof Deadline d) {
+            copy = new Deadline(d.getName(), d.getDue());
+        } else if (t instanceof Event e) {
+            copy = new Event(e.getName(), e.getFrom(), e.getTo());
+        } else {
+            copy = new Todo(t.getName());
         }
+        if (t.isDone()) {
+            copy.markDone();
+        }
+        return copy;
     }
 
-    public interface TaskNameProvider {
-        String getName();
+    /**
+     * The first {@code size} slots of an array of task copies. Slots past the size may be filled
+     * by later appends; the ones inside it are never written again.
+     */
+    private static final class Snapshot extends AbstractList<Task> implements RandomAccess {
+        private final Task[] slots;
+        private final int size;
+
+        private Snapshot(Task[] slots, int size) {
+            this.slots = slots;
+            this.size = size;
+        }
+
+        @Override
+        public Task get(int index) {
+            return slots[Objects.checkIndex(index, size)];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Gets told about every change made to a task list, with one-based positions
+     * as they were when the change happened
+     */
+    public interface ChangeListener {
+        void taskAdded(Task task);
+
+        void taskDeleted(int n);
+
+        /** Several tasks were deleted at once; {@code ns} is ascending. */
+        void tasksDeleted(int[] ns);
+
+        void taskMarked(int n, boolean done);
+
+        void tasksSortedByDate();
+
+        void tasksSortedByName();
     }
 }
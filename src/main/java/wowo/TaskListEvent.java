@@ -0,0 +1,28 @@
+package wowo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a search or sort over a task list.
+ * Off unless a recording enables {@code wowo.TaskList}.
+ */
+@Name("wowo.TaskList")
+@Label("Task List Query")
+@Category({"Wowo", "Task List"})
+@Enabled(false)
+@StackTrace(false)
+final class TaskListEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Input Size")
+    int inputSize;
+
+    @Label("Result Size")
+    int resultSize;
+}
@@ -0,0 +1,253 @@
+package wowo;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Columnar store for very large task lists. Instead of one object graph per task it keeps
+ * a type byte, a done bit, one or two epoch days and a slice of a shared UTF-8 name arena,
+ * about 20 bytes plus the name per task.
+ * <p>{@link #get(int)} builds a fresh {@link Task} view on every call, so views must not be
+ * compared by identity and changes made to a view are only kept once it is {@link #set} back.
+ */
+final class TaskStore extends AbstractList<Task> {
+    private static final byte TODO = 0;
+    private static final byte DEADLINE = 1;
+    private static final byte EVENT = 2;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private int[] fromDays = new int[INITIAL_CAPACITY];
+    private int[] toDays = new int[INITIAL_CAPACITY];
+    private int[] nameStarts = new int[INITIAL_CAPACITY];
+    private int[] nameLengths = new int[INITIAL_CAPACITY];
+    private final BitSet done = new BitSet();
+    private byte[] arena = new byte[INITIAL_CAPACITY * 16];
+    private int arenaUsed;
+    /** Arena bytes still referenced by a task; the rest is left behind by deletes. */
+    private int arenaLive;
+    private int size;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Task get(int index) {
+        checkIndex(index, size);
+        String name = new String(arena, nameStarts[index], nameLengths[index], StandardCharsets.UTF_8);
+        Task t;
+        switch (types[index]) {
+        case DEADLINE:
+            t = new Deadline(name, LocalDate.ofEpochDay(fromDays[index]));
+            break;
+        case EVENT:
+            t = new Event(name, LocalDate.ofEpochDay(fromDays[index]), LocalDate.ofEpochDay(toDays[index]));
+            break;
+        default:
+            t = new Todo(name);
+            break;
+        }
+        if (done.get(index)) {
+            t.markDone();
+        }
+        return t;
+    }
+
+    @Override
+    public Task set(int index, Task t) {
+        Task old = get(index);
+        byte[] name = t.getName().getBytes(StandardCharsets.UTF_8);
+        if (!sameName(index, name)) {
+            arenaLive -= nameLengths[index];
+            clearName(index);
+            putName(index, name);
+        }
+        putFields(index, t);
+        return old;
+    }
+
+    @Override
+    public void add(int index, Task t) {
+        checkIndex(index, size + 1);
+        byte[] name = t.getName().getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(size + 1);
+        if (index < size) {
+            shift(index, index + 1, size - index);
+            BitSet tail = done.get(index, size);
+            done.clear(index, size);
+            for (int b = tail.nextSetBit(0); b >= 0; b = tail.nextSetBit(b + 1)) {
+                done.set(index + 1 + b);
+            }
+        }
+        size++;
+        clearName(index);
+        putName(index, name);
+        putFields(index, t);
+        modCount++;
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task removed = get(index);
+        arenaLive -= nameLengths[index];
+        shift(index + 1, index, size - index - 1);
+        BitSet tail = done.get(index + 1, size);
+        done.clear(index, size);
+        for (int b = tail.nextSetBit(0); b >= 0; b = tail.nextSetBit(b + 1)) {
+            done.set(index + b);
+        }
+        size--;
+        modCount++;
+        if (arenaUsed > 1024 && arenaLive < arenaUsed / 2) {
+            compactArena();
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        arenaUsed = 0;
+        arenaLive = 0;
+        done.clear();
+        modCount++;
+    }
+
+    /**
+     * Returns the heap taken by the columns and the name arena per task, including spare
+     * capacity and array headers.
+     *
+     * @return bytes per task, or 0 when empty
+     */
+    double bytesPerTask() {
+        if (size == 0) {
+            return 0;
+        }
+        long bytes = arrayBytes(types.length, 1)
+                + arrayBytes(fromDays.length, 4) + arrayBytes(toDays.length, 4)
+                + arrayBytes(nameStarts.length, 4) + arrayBytes(nameLengths.length, 4)
+                + arrayBytes(arena.length, 1)
+                + arrayBytes(done.size() / Long.SIZE, 8);
+        return (double) bytes / size;
+    }
+
+    /**
+     * Estimates the heap taken by one task held as objects: the task, its name string and
+     * its dates, plus {@code slotBytes} for the list entry pointing at it.
+     *
+     * @param t the task
+     * @param slotBytes bytes the list spends per element
+     * @return estimated bytes
+     */
+    static long objectBytes(Task t, int slotBytes) {
+        String name = t.getName();
+        boolean latin1 = name.chars().allMatch(c -> c <= 0xFF);
+        // Header, name reference and done flag, then one reference per date
+        long bytes = align(12 + 4 + 1) + 24 + arrayBytes(name.length(), latin1 ? 1 : 2) + slotBytes;
+        if (t instanceof Deadline) {
+            bytes += align(12 + 4 + 1 + 4) - align(12 + 4 + 1) + 24;
+        } else if (t instanceof Event) {
+            bytes += align(12 + 4 + 1 + 8) - align(12 + 4 + 1) + 2 * 24;
+        }
+        return bytes;
+    }
+
+    /** Size of an array on a 64-bit JVM with compressed references. */
+    static long arrayBytes(int length, int elementBytes) {
+        return align(16 + (long) length * elementBytes);
+    }
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private void putFields(int index, Task t) {
+        if (t instanceof Deadline d) {
+            types[index] = DEADLINE;
+            fromDays[index] = Math.toIntExact(d.getDue().toEpochDay());
+            toDays[index] = fromDays[index];
+        } else if (t instanceof Event e) {
+            types[index] = EVENT;
+            fromDays[index] = Math.toIntExact(e.getFrom().toEpochDay());
+            toDays[index] = Math.toIntExact(e.getTo().toEpochDay());
+        } else {
+            types[index] = TODO;
+        }
+        done.set(index, t.isDone());
+    }
+
+    private boolean sameName(int index, byte[] name) {
+        int start = nameStarts[index];
+        return Arrays.equals(arena, start, start + nameLengths[index], name, 0, name.length);
+    }
+
+    /**
+     * Empties the name slice of a slot about to get a new name. An appended slot may still hold
+     * the start of a name from a bigger arena, which {@link #compactArena()} must not copy from.
+     */
+    private void clearName(int index) {
+        nameStarts[index] = 0;
+        nameLengths[index] = 0;
+    }
+
+    private void putName(int index, byte[] name) {
+        if (arenaUsed + name.length > arena.length) {
+            if (arenaLive + name.length <= arena.length / 2) {
+                compactArena();
+            }
+            if (arenaUsed + name.length > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaUsed + name.length));
+            }
+        }
+        System.arraycopy(name, 0, arena, arenaUsed, name.length);
+        nameStarts[index] = arenaUsed;
+        nameLengths[index] = name.length;
+        arenaUsed += name.length;
+        arenaLive += name.length;
+    }
+
+    /** Copies the live names to the front of the arena, dropping what deletes left behind. */
+    private void compactArena() {
+        byte[] packed = new byte[Math.max(INITIAL_CAPACITY * 16, arenaLive * 2)];
+        int used = 0;
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(arena, nameStarts[i], packed, used, nameLengths[i]);
+            nameStarts[i] = used;
+            used += nameLengths[i];
+        }
+        arena = packed;
+        arenaUsed = used;
+        arenaLive = used;
+    }
+
+    private void shift(int from, int to, int count) {
+        System.arraycopy(types, from, types, to, count);
+        System.arraycopy(fromDays, from, fromDays, to, count);
+        System.arraycopy(toDays, from, toDays, to, count);
+        System.arraycopy(nameStarts, from, nameStarts, to, count);
+        System.arraycopy(nameLengths, from, nameLengths, to, count);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= types.length) {
+            return;
+        }
+        int capacity = Math.max(needed, types.length + (types.length >> 1));
+        types = Arrays.copyOf(types, capacity);
+        fromDays = Arrays.copyOf(fromDays, capacity);
+        toDays = Arrays.copyOf(toDays, capacity);
+        nameStarts = Arrays.copyOf(nameStarts, capacity);
+        nameLengths = Arrays.copyOf(nameLengths, capacity);
+    }
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + bound);
+        }
+    }
+}
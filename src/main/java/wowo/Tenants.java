@@ -0,0 +1,246 @@
+package wowo;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Named task lists, each kept in its own data file {@code <dir>/<name>.txt} and loaded on first
+ * use. At most {@code capacity} lists stay resident: when one more is needed, the least recently
+ * used lists that no command is running on are committed, flushed and dropped from memory.
+ * <p>Commands that change a list run one at a time; queries run alongside them and each other,
+ * reading the list's concurrent {@link TaskList}. Commands on different lists run in parallel.
+ */
+final class Tenants implements AutoCloseable {
+    /** The list a client starts on; its file is the single-list {@code data/wowo.txt}. */
+    static final String DEFAULT = "wowo";
+    static final int DEFAULT_CAPACITY = 64;
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final Path dir;
+    private final int capacity;
+    /** Resident lists in access order, least recently used first. */
+    private final LinkedHashMap<String, Tenant> resident = new LinkedHashMap<>(16, 0.75f, true);
+    /** Evicted lists still being flushed; a list is not reloaded before that is done. */
+    private final Map<String, Tenant> closing = new HashMap<>();
+    private long hits;
+    private long misses;
+    private long evictions;
+    private boolean closed;
+
+    /**
+     * @param dir directory holding one data file per list
+     * @param capacity how many lists may be resident at once
+     */
+    Tenants(Path dir, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.dir = dir;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Checks a list name.
+     *
+     * @param name the name
+     * @return whether it can name a list
+     */
+    static boolean isValidName(String name) {
+        return NAME.matcher(name).matches();
+    }
+
+    /**
+     * Runs one command on a list, loading the list first if it is not resident.
+     *
+     * @param name the list
+     * @param input the user's input
+     * @return the reply
+     */
+    String execute(String name, String input) {
+        Tenant t = acquire(name);
+        try {
+            if (t.wowo.isQuery(input)) {
+                return t.wowo.getResponse(input);
+            }
+            t.lock.lock();
+            try {
+                return t.wowo.getResponse(input);
+            } finally {
+                t.lock.unlock();
+            }
+        } finally {
+            release(t);
+        }
+    }
+
+    private Tenant acquire(String name) {
+        if (!isValidName(name)) {
+            throw new IllegalArgumentException("Invalid list name: " + name);
+        }
+        Tenant t;
+        List<Tenant> evicted = List.of();
+        boolean miss;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Lists are closed");
+            }
+            t = resident.get(name);
+            miss = t == null;
+            if (miss) {
+                misses++;
+                t = new Tenant(new Wowo(new Storage(dir.resolve(name + ".txt"), true), null, true), closing.get(name));
+                resident.put(name, t);
+            } else {
+                hits++;
+            }
+            t.users++;
+            if (miss) {
+                evicted = pickEvictions();
+            }
+        }
+        flush(evicted);
+        if (miss) {
+            t.load();
+        } else {
+            t.awaitLoaded();
+        }
+        return t;
+    }
+
+    private void release(Tenant t) {
+        List<Tenant> evicted;
+        synchronized (this) {
+            t.users--;
+            evicted = pickEvictions();
+        }
+        flush(evicted);
+    }
+
+    /** Takes idle lists out, least recently used first, until the resident ones fit. */
+    private List<Tenant> pickEvictions() {
+        List<Tenant> out = new ArrayList<>();
+        Iterator<Map.Entry<String, Tenant>> it = resident.entrySet().iterator();
+        while (resident.size() > capacity && it.hasNext()) {
+            Map.Entry<String, Tenant> e = it.next();
+            if (e.getValue().users == 0) {
+                it.remove();
+                closing.put(e.getKey(), e.getValue());
+                out.add(e.getValue());
+                evictions++;
+            }
+        }
+        return out;
+    }
+
+    /** Commits and flushes evicted lists outside the cache lock, then forgets them. */
+    private void flush(List<Tenant> evicted) {
+        for (Tenant t : evicted) {
+            t.close();
+            synchronized (this) {
+                closing.values().remove(t);
+            }
+        }
+    }
+
+    /**
+     * Formats the cache counters.
+     *
+     * @return the report
+     */
+    synchronized String report() {
+        long lookups = hits + misses;
+        return String.format("%d of %d lists resident; %d hits, %d misses (%.1f%% hit rate), %d evictions",
+                resident.size(), capacity, hits, misses, lookups == 0 ? 0.0 : 100.0 * hits / lookups, evictions);
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    synchronized long evictions() {
+        return evictions;
+    }
+
+    synchronized int residentCount() {
+        return resident.size();
+    }
+
+    /**
+     * Commits and flushes every resident list. Commands must have stopped.
+     */
+    @Override
+    public void close() {
+        List<Tenant> all;
+        synchronized (this) {
+            closed = true;
+            all = new ArrayList<>(resident.values());
+            resident.clear();
+        }
+        flush(all);
+    }
+
+    /** One list and the commands running on it. */
+    private static final class Tenant {
+        private final Wowo wowo;
+        /** Serialises the commands that change the list; queries do not take it. */
+        private final ReentrantLock lock = new ReentrantLock();
+        private final CountDownLatch loaded = new CountDownLatch(1);
+        private final CountDownLatch flushed = new CountDownLatch(1);
+        /** The evicted copy of the same list, if it was still flushing when this one was created. */
+        private Tenant previous;
+        /** Commands holding this list; guarded by the cache. */
+        private int users;
+
+        private Tenant(Wowo wowo, Tenant previous) {
+            this.wowo = wowo;
+            this.previous = previous;
+        }
+
+        private void load() {
+            try {
+                if (previous != null) {
+                    previous.flushed.await();
+                    previous = null;
+                }
+                wowo.loadOnStartup();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                loaded.countDown();
+            }
+        }
+
+        private void awaitLoaded() {
+            try {
+                loaded.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void close() {
+            lock.lock();
+            try {
+                String problem = wowo.close();
+                if (problem != null) {
+                    System.err.println(problem);
+                }
+            } finally {
+                lock.unlock();
+                flushed.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package wowo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from every 3-character slice of a lower-cased task name to the tasks
+ * containing it, used to answer {@link TaskList#find(String)} without scanning every task.
+ * <p>Postings do not depend on list order. Each task carries its rank in the list instead,
+ * which only has to be renumbered when the list is reordered, and matches are returned sorted
+ * by it.
+ */
+final class TrigramIndex {
+    private static final int N = 3;
+
+    private final Map<Long, Set<Task>> postings = new HashMap<>();
+    private final Map<Task, Entry> entries = new IdentityHashMap<>();
+    /** Rank of the next task appended; ranks only need to be ascending in list order. */
+    private long nextRank;
+
+    /**
+     * Indexes a task that was appended to the end of the list.
+     *
+     * @param t the task
+     */
+    void add(Task t) {
+        Entry e = entries.get(t);
+        if (e != null) {
+            // Same instance added twice; its trigrams are already indexed
+            e.count++;
+            return;
+        }
+        String name = t.getName().toLowerCase();
+        entries.put(t, new Entry(t, name, nextRank++));
+        for (int i = 0; i + N <= name.length(); i++) {
+            postings.computeIfAbsent(key(name, i), k -> new HashSet<>()).add(t);
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param t the task
+     */
+    void remove(Task t) {
+        Entry e = entries.get(t);
+        if (e == null || --e.count > 0) {
+            return;
+        }
+        entries.remove(t);
+        String name = e.lowered;
+        for (int i = 0; i + N <= name.length(); i++) {
+            Long k = key(name, i);
+            Set<Task> set = postings.get(k);
+            if (set != null) {
+                set.remove(t);
+                if (set.isEmpty()) {
+                    postings.remove(k);
+                }
+            }
+        }
+    }
+
+    /**
+     * Re-indexes all tasks in list order.
+     *
+     * @param tasks the tasks, in list order
+     */
+    void rebuild(List<Task> tasks) {
+        postings.clear();
+        entries.clear();
+        nextRank = 0;
+        for (Task t : tasks) {
+            add(t);
+        }
+    }
+
+    /**
+     * Renumbers the indexed tasks after the list was reordered; the postings stay as they are.
+     *
+     * @param tasks the same tasks, in their new list order
+     */
+    void reordered(List<Task> tasks) {
+        // Backwards, so a task in the list twice ranks by its first place, as when it was added
+        for (int i = tasks.size() - 1; i >= 0; i--) {
+            entries.get(tasks.get(i)).rank = i;
+        }
+        nextRank = tasks.size();
+    }
+
+    /**
+     * Finds the tasks whose name contains {@code keyword}, ignoring case.
+     *
+     * @param keyword search term
+     * @param all every task in list order, scanned when the keyword is too short to index
+     * @return matching tasks in list order
+     */
+    List<Task> find(String keyword, List<Task> all) {
+        String kw = keyword.toLowerCase();
+        List<Task> out = new ArrayList<>();
+        if (kw.length() < N) {
+            for (Task t : all) {
+                if (entries.get(t).lowered.contains(kw)) {
+                    out.add(t);
+                }
+            }
+            return out;
+        }
+
+        List<Set<Task>> sets = new ArrayList<>();
+        Set<Task> smallest = null;
+        for (int i = 0; i + N <= kw.length(); i++) {
+            Set<Task> set = postings.get(key(kw, i));
+            if (set == null) {
+                return out;
+            }
+            sets.add(set);
+            if (smallest == null || set.size() < smallest.size()) {
+                smallest = set;
+            }
+        }
+
+        List<Entry> found = new ArrayList<>();
+        for (Task t : smallest) {
+            Entry e = entries.get(t);
+            if (inAll(t, sets) && e.lowered.contains(kw)) {
+                found.add(e);
+            }
+        }
+        found.sort(Comparator.comparingLong(e -> e.rank));
+        for (Entry e : found) {
+            out.add(e.task);
+        }
+        return out;
+    }
+
+    private static boolean inAll(Task t, List<Set<Task>> sets) {
+        for (Set<Task> set : sets) {
+            if (!set.contains(t)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Long key(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    /** An indexed task with its lower-cased name, its rank in the list and how many times it is there. */
+    private static final class Entry {
+        private final Task task;
+        private final String lowered;
+        private long rank;
+        private int count = 1;
+
+        private Entry(Task task, String lowered, long rank) {
+            this.task = task;
+            this.lowered = lowered;
+            this.rank = rank;
+        }
+    }
+}
@@ -27,10 +27,78 @@ public class Ui {
 
     /**
      * Read the input given
-     * @return a string data
+     * @return a string data, or null once the input has ended
      */
     public String readCommand() {
-        return sc.nextLine();
+        return sc.hasNextLine() ? sc.nextLine() : null;
+    }
+
+    /**
+     * Shows the result of a command
+     * @param r what the command did
+     */
+    public void show(CommandResult r) {
+        switch (r.kind) {
+        case ADDED:
+            showAdded(r.task, r.size);
+            if (!r.clashes.isEmpty()) {
+                showClashes(r.clashes);
+            }
+            break;
+        case MARKED:
+            if (r.task != null) {
+                showMarked(r.task);
+            } else {
+                showEach("Good! Now go back to work, I've marked these " + r.tasks.size() + ":", r.tasks, null);
+            }
+            break;
+        case UNMARKED:
+            if (r.task != null) {
+                showUnmarked(r.task);
+            } else {
+                showEach("Hey, I thought you've done these. I'm unmarking " + r.tasks.size() + ":", r.tasks, null);
+            }
+            break;
+        case DELETED:
+            if (r.task != null) {
+                showDeleted(r.task, r.size);
+            } else {
+                showEach("Noted. I've removed these " + r.tasks.size() + " tasks:", r.tasks,
+                        "Now you have " + r.size + " tasks in the list.");
+            }
+            break;
+        case LIST:
+        case SORTED:
+            showList(r.tasks, r.offset, r.pages > 1 ? pageFooter(r) : null);
+            break;
+        case MATCHES:
+            showMatches(r.tasks);
+            break;
+        case INFO:
+            showWarning(r.message);
+            break;
+        case EXIT:
+            if (r.message != null) {
+                showWarning(r.message);
+            }
+            showBye();
+            break;
+        default:
+            throw new AssertionError(r.kind);
+        }
+    }
+
+    /** Prints a heading, each task, and an optional footer. */
+    private void showEach(String heading, Iterable<Task> tasks, String footer) {
+        printLine();
+        System.out.println(heading);
+        for (Task t : tasks) {
+            System.out.println("  " + t);
+        }
+        if (footer != null) {
+            System.out.println(footer);
+        }
+        printLine();
     }
 
     /**
@@ -46,11 +114,34 @@ public class Ui {
         printLine();
     }
 
+    /**
+     * Warn that a newly added event clashes with existing ones
+     * @param clashes the events that overlap the new one
+     */
+    public void showClashes(Iterable<Task> clashes) {
+        printLine();
+        System.out.println("Heads up, this clashes with:");
+        for (Task t : clashes) {
+            System.out.println("  " + t);
+        }
+        printLine();
+    }
+
     /**
      * Prints all tasks as a list
      * @param tasks the list of tasks
      */
     public void showList(Iterable<Task> tasks) {
+        showList(tasks, 0, null);
+    }
+
+    /**
+     * Prints one page of tasks, numbered by their place in the whole list
+     * @param tasks the tasks on the page
+     * @param offset the number of tasks on earlier pages
+     * @param footer what to print under the tasks, or null
+     */
+    public void showList(Iterable<Task> tasks, int offset, String footer) {
         printLine();
         System.out.println("Your list:");
 
@@ -58,11 +149,25 @@ public class Ui {
         tasks.forEach(list::add);
 
         IntStream.range(0, list.size())
-                .forEach(i -> System.out.println((i + 1) + ". " + list.get(i)));
+                .forEach(i -> System.out.println((offset + i + 1) + ". " + list.get(i)));
 
+        if (footer != null) {
+            System.out.println(footer);
+        }
         printLine();
     }
 
+    /**
+     * Describes where a page sits in the list and how to get the next one
+     * @param r a page of the list
+     * @return e.g. {@code Page 1 of 3 (tasks 1-50 of 120); ask for page 2 for more.}
+     */
+    static String pageFooter(CommandResult r) {
+        String where = "Page " + r.page + " of " + r.pages + " (tasks " + (r.offset + 1) + "-"
+                + (r.offset + r.tasks.size()) + " of " + r.size + ")";
+        return r.page < r.pages ? where + "; ask for page " + (r.page + 1) + " for more." : where + ".";
+    }
+
     /**
      * Show a confirmation message that the task is successfully marked
      * @param task the task that the user wants to mark
@@ -1,6 +1,15 @@
 package wowo;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * Command-Line chatbot that manages tasks (todos, deadlines, and events).
@@ -8,161 +17,432 @@ import java.util.List;
  */
 public class Wowo {
     private static final String BOT_NAME = "Wowo";
+    private static final boolean WARN_CLASHES =
+            Boolean.parseBoolean(System.getProperty("wowo.warnClashes", "true"));
+    private static final String BATCH_USAGE =
+            "Usage: wowo --batch [file|-] [--checkpoint N], where N is 0 or more changes between commits.";
+    /**
+     * Tasks per page of {@code list} and {@code sort} unless the user gives a limit. The default
+     * of 0 shows every task, as before paging existed; {@code list --limit N} pages on request.
+     */
+    private static final int LIST_PAGE_SIZE = Integer.getInteger("wowo.listPageSize", 0);
 
     private final Ui ui = new Ui();
-    private final Storage storage = new Storage();
-    private final TaskList tasks = new TaskList();
+    private final Storage storage;
+    private final TaskList tasks;
+    private final PersistenceWriter writer;
+    private final CommandRegistry commands = buildCommands();
+    /** Commands between commits: 1 when interactive, 0 for only at the end of a batch. */
+    private int commitEvery = 1;
+    private int uncommitted;
+    private volatile boolean closed;
+    /** Whether {@code bye} closes the storage; a GUI only flushes, since its window stays open. */
+    private boolean closeOnBye;
+    private final CommandStats stats;
+    /** Time spent persisting during the current command. */
+    private long persistNanos;
+
+    /**
+     * Creates the chatbot; every change to its task list is recorded by the storage journal
+     * and written in groups by a background writer.
+     * The fsync policy, group window and batch size can be set with the {@code wowo.durability},
+     * {@code wowo.commitWindowMillis} and {@code wowo.commitBatch} system properties, and the
+     * task list backing with {@code wowo.taskListBacking}.
+     */
+    public Wowo() {
+        this(new Storage());
+    }
+
+    /**
+     * Creates the chatbot on top of the given storage, e.g. a scratch file for benchmarks.
+     *
+     * @param storage where tasks are loaded from and saved to
+     */
+    Wowo(Storage storage) {
+        this(storage, System.getProperty("wowo.statsFile"));
+    }
 
+    /**
+     * Creates the chatbot on top of the given storage.
+     *
+     * @param storage where tasks are loaded from and saved to
+     * @param statsFile where to dump the command statistics periodically, or null for nowhere
+     */
+    Wowo(Storage storage, String statsFile) {
+        this(storage, statsFile, false);
+    }
+
+    /**
+     * Creates the chatbot on top of the given storage, optionally for several threads. With a
+     * concurrent list, queries (see {@link #isQuery(String)}) may run on any number of threads
+     * alongside each other and alongside one thread running the other commands.
+     *
+     * @param storage where tasks are loaded from and saved to
+     * @param statsFile where to dump the command statistics periodically, or null for nowhere
+     * @param concurrent whether queries may run while the list is being changed
+     */
+    Wowo(Storage storage, String statsFile, boolean concurrent) {
+        this.storage = storage;
+        this.tasks = new TaskList(
+                TaskList.Backing.valueOf(System.getProperty("wowo.taskListBacking", "ARRAY")), concurrent);
+        this.writer = new PersistenceWriter(
+                storage,
+                PersistenceWriter.Durability.valueOf(System.getProperty("wowo.durability", "GROUP")),
+                Long.getLong("wowo.commitWindowMillis", PersistenceWriter.DEFAULT_WINDOW_MILLIS),
+                Integer.getInteger("wowo.commitBatch", PersistenceWriter.DEFAULT_MAX_BATCH));
+        tasks.setListener(writer);
+        this.stats = new CommandStats(storage::bytesWritten);
+        if (statsFile != null) {
+            stats.dumpPeriodically(Path.of(statsFile), Long.getLong("wowo.statsPeriodSeconds", 60));
+        }
+    }
+
+    /** Commits the changes of a command, or counts them until the next checkpoint in batch mode. */
     private void persist() throws WowoException {
-        storage.save(tasks.asList());
+        uncommitted++;
+        if (commitEvery > 0 && uncommitted >= commitEvery) {
+            commitTimed();
+        }
+    }
+
+    /** Commits now, counting the time as spent persisting. */
+    private void commitTimed() throws WowoException {
+        long start = System.nanoTime();
+        try {
+            commitNow();
+        } finally {
+            persistNanos += System.nanoTime() - start;
+        }
+    }
+
+    private void commitNow() throws WowoException {
+        writer.commit(tasks.asList());
+        uncommitted = 0;
+    }
+
+    /** Commits what is left and waits until it is written; returns the problem met, or null. */
+    private String flush() {
+        try {
+            if (uncommitted > 0) {
+                commitNow();
+            }
+            writer.flush();
+            return null;
+        } catch (WowoException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Commits what is left, then flushes and stops the writer. Closing again does nothing, so
+     * the shutdown hook may close an app that has already closed itself.
+     *
+     * @return the problem met while saving, or null
+     */
+    public synchronized String close() {
+        if (closed) {
+            return null;
+        }
+        closed = true;
+        try {
+            if (uncommitted > 0) {
+                commitNow();
+            }
+            writer.close();
+            return null;
+        } catch (WowoException e) {
+            return e.getMessage();
+        } finally {
+            stats.stop();
+        }
     }
 
-    private void loadOnStartup() {
+    void loadOnStartup() {
         try {
             List<Task> loaded = storage.load();
-            // no-op; we just want the list
-            tasks.asList();
-            loaded.forEach(tasks::add);
+            tasks.loadAll(loaded);
         } catch (WowoException e) {
             ui.showWarning("Warning: Could not load previous data.\n  " + e.getMessage());
         }
     }
 
-    private void run() {
+    /**
+     * Loads the saved tasks and adds them to the list a chunk at a time, reporting progress
+     * after each chunk. Meant for a frontend that loads in the background; commands must not
+     * run until it returns.
+     *
+     * @param chunkSize tasks per chunk
+     * @param progress told the number of tasks loaded so far and the total, after each chunk
+     * @return a warning if the data could not be loaded, or null
+     */
+    public String loadProgressively(int chunkSize, BiConsumer<Integer, Integer> progress) {
+        List<Task> loaded;
+        try {
+            loaded = storage.load();
+        } catch (WowoException e) {
+            return "Warning: Could not load previous data.\n  " + e.getMessage();
+        }
+        for (int from = 0; from < loaded.size(); from += chunkSize) {
+            int to = Math.min(loaded.size(), from + chunkSize);
+            tasks.loadMore(loaded.subList(from, to));
+            progress.accept(to, loaded.size());
+        }
+        return null;
+    }
+
+    /** Runs the interactive loop until {@code bye} or the end of the input, then closes. */
+    void run() {
+        closeOnBye = true;
         ui.showWelcome(BOT_NAME);
 
-        while (true) {
-            String input = ui.readCommand().trim();
-            if (input.equalsIgnoreCase("bye")) {
-                ui.showBye();
-                break;
+        String line;
+        while ((line = ui.readCommand()) != null) {
+            String input = line.trim();
+            if (input.isEmpty()) {
+                continue;
             }
-
             try {
-                if (input.equalsIgnoreCase("list")) {
-                    ui.showList(tasks.asList());
+                CommandResult result = execute(input, this::show);
+                if (result.kind == CommandResult.Kind.EXIT) {
+                    return;
+                }
+            } catch (WowoException e) {
+                ui.showWarning(e.getMessage());
+            }
+        }
+        // Piped input ended without bye; the queued writes must not die with the writer thread
+        String problem = close();
+        if (problem != null) {
+            ui.showWarning(problem);
+        }
+    }
 
-                } else if (input.startsWith("mark ")) {
-                    var t = tasks.markOneBased(Parser.parseIndex(input));
-                    persist();
-                    ui.showMarked(t);
+    /**
+     * Tells whether a command only reads the task list.
+     *
+     * @param input the user's input
+     * @return true for a query
+     */
+    boolean isQuery(String input) {
+        return commands.isQuery(input.trim());
+    }
 
-                } else if (input.startsWith("unmark ")) {
-                    var t = tasks.unmarkOneBased(Parser.parseIndex(input));
-                    persist();
-                    ui.showUnmarked(t);
+    /**
+     * Runs one command from the GUI and formats its result as the bot's reply.
+     * {@code bye} only flushes the changes; the frontend stays usable until it calls {@link #close()}.
+     *
+     * @param raw the user's input
+     * @return the reply, or an empty string for empty input
+     */
+    public String getResponse(String raw) {
+        String input = raw == null ? "" : raw.trim();
+        if (input.isEmpty()) {
+            return "";
+        }
+        try {
+            return execute(input, this::format);
+        } catch (WowoException e) {
+            return e.getMessage();
+        }
+    }
 
-                } else if (input.startsWith("delete ")) {
-                    var removed = tasks.deleteOneBased(Parser.parseIndex(input));
-                    persist();
-                    ui.showDeleted(removed, tasks.size());
+    /**
+     * Runs a command and renders its result, recording the time spent handling, persisting
+     * and rendering under the command's name.
+     */
+    private <T> T execute(String input, Function<CommandResult, T> render) throws WowoException {
+        if (closed) {
+            throw new WowoException("Wowo has been closed; the command was not run.");
+        }
+        String name = commands.commandName(input);
+        // Queries may run on several threads at once and never persist, so they leave the timer alone
+        boolean query = commands.isQuery(input);
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        if (!query) {
+            persistNanos = 0;
+        }
+        long start = System.nanoTime();
+        CommandResult result;
+        try {
+            result = commands.execute(input);
+        } catch (WowoException e) {
+            long persisted = query ? 0 : persistNanos;
+            stats.record(name, System.nanoTime() - start - persisted, persisted, 0, true);
+            traced(event, name, true);
+            throw e;
+        }
+        long handled = System.nanoTime();
+        T out = render.apply(result);
+        long persisted = query ? 0 : persistNanos;
+        stats.record(name, handled - start - persisted, persisted, System.nanoTime() - handled, false);
+        traced(event, name, false);
+        return out;
+    }
 
-                } else if (input.startsWith("todo")) {
-                    String desc = Parser.parseTodoDesc(input);
-                    var t = tasks.add(new Todo(desc));
-                    persist();
-                    ui.showAdded(t, tasks.size());
+    private void traced(CommandEvent event, String name, boolean failed) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.command = name;
+            event.taskCount = tasks.size();
+            event.failed = failed;
+            event.commit();
+        }
+    }
 
-                } else if (input.startsWith("deadline ")) {
-                    var p = Parser.parseDeadline(input);
-                    var t = tasks.add(new Deadline(p.desc, p.due));
-                    persist();
-                    ui.showAdded(t, tasks.size());
+    private CommandResult show(CommandResult r) {
+        ui.show(r);
+        return r;
+    }
 
-                } else if (input.startsWith("event ")) {
-                    var p = Parser.parseEvent(input);
-                    var t = tasks.add(new Event(p.desc, p.from, p.to));
+    private CommandRegistry buildCommands() {
+        return new CommandRegistry()
+                .register("bye", input -> CommandResult.exit(closeOnBye ? close() : flush()))
+                .registerQuery("list", this::list)
+                .register("mark", input -> mark(input, true))
+                .register("unmark", input -> mark(input, false))
+                .register("delete", input -> {
+                    int[] ns = Parser.parseIndices(input, tasks.size());
+                    if (ns.length == 1) {
+                        Task removed = tasks.deleteOneBased(ns[0]);
+                        persist();
+                        return CommandResult.deleted(removed, tasks.size());
+                    }
+                    List<Task> removed = tasks.deleteAllOneBased(ns);
                     persist();
-                    ui.showAdded(t, tasks.size());
-
-                } else if (input.startsWith("find ")) {
-                    String keyword = Parser.parseFind(input);
-                    var matches = tasks.find(keyword);
-                    ui.showMatches(matches);
-
-                } else if (input.startsWith("sort")) {
+                    return CommandResult.changedAll(CommandResult.Kind.DELETED, removed, tasks.size());
+                })
+                .register("todo", input -> added(new Todo(Parser.parseTodoDesc(input)), List.of()))
+                .register("deadline", input -> {
+                    var p = Parser.parseDeadline(input);
+                    return added(new Deadline(p.desc, p.due), List.of());
+                })
+                .register("event", input -> {
+                    var p = Parser.parseEvent(input);
+                    var clashes = clashesWith(p);
+                    return added(new Event(p.desc, p.from, p.to), clashes);
+                })
+                .registerQuery("find", input -> matches(tasks.find(Parser.parseFind(input))))
+                .registerQuery("due", input -> {
+                    var range = Parser.parseDateQuery(input);
+                    return matches(tasks.findByDate(range.from, range.to));
+                })
+                .registerQuery("on", input -> matches(tasks.findOn(Parser.parseDateQuery(input).from)))
+                .registerQuery("busy", input -> {
+                    var range = Parser.parseBusy(input);
+                    return matches(tasks.findOverlapping(range.from, range.to));
+                })
+                .register("import", this::importTasks)
+                .registerQuery("stats", input -> CommandResult.info(stats.report()))
+                .registerQuery("memory", input -> CommandResult.info(String.format(
+                        "%d tasks, about %.0f bytes each", tasks.size(), tasks.bytesPerTask())))
+                .register("sort", input -> {
                     Parser.parseSort(input);          // validates it's exactly "sort"
-                    tasks.sortByDateThenName();       // or sortByName() if you prefer
+                    tasks.sortByDateThenName();
                     persist();
-                    ui.showList(tasks.asList());
+                    return page(CommandResult.Kind.SORTED, tasks.asList(), 1, LIST_PAGE_SIZE);
+                });
+    }
 
-                } else if (!input.isEmpty()) {
-                    throw new UnknownCommandException();
-                }
+    /** Handles {@code mark} and {@code unmark} with one index, a range or a list. */
+    private CommandResult mark(String input, boolean done) throws WowoException {
+        int[] ns = Parser.parseIndices(input, tasks.size());
+        CommandResult.Kind kind = done ? CommandResult.Kind.MARKED : CommandResult.Kind.UNMARKED;
+        if (ns.length == 1) {
+            Task t = done ? tasks.markOneBased(ns[0]) : tasks.unmarkOneBased(ns[0]);
+            persist();
+            return CommandResult.changed(kind, t, tasks.size());
+        }
+        List<Task> changed = tasks.markAllOneBased(ns, done);
+        persist();
+        return CommandResult.changedAll(kind, changed, tasks.size());
+    }
 
-            } catch (WowoException e) {
-                ui.showWarning(e.getMessage());
-            }
+    /**
+     * Handles {@code import <file>}: adds the tasks a batch at a time and commits each batch, so
+     * the journal holds at most one batch however large the file is. Batches added before a
+     * failure are kept.
+     */
+    private CommandResult importTasks(String input) throws WowoException {
+        String file = Parser.parseImport(input);
+        Importer.Report report;
+        try {
+            report = Importer.importFile(Path.of(file), batch -> {
+                tasks.addMany(batch.toArray(new Task[0]));
+                commitTimed();
+            });
+        } catch (IOException | InvalidPathException e) {
+            throw new WowoException("Could not import " + file + ": " + e.getMessage());
         }
+        return CommandResult.info(report + "\nNow you have " + tasks.size() + " tasks.");
     }
 
-    public String getResponse(String raw) {
-        String input = raw == null ? "" : raw.trim();
-        if (input.isEmpty()) {
-            return "";
+    /** Handles {@code list}, {@code list date} and {@code list name}, a page at a time. */
+    private CommandResult list(String input) throws WowoException {
+        Parser.ListQuery q = Parser.parseList(input);
+        int limit = q.limit > 0 ? q.limit : LIST_PAGE_SIZE;
+        switch (q.order) {
+        case "date":
+            return page(CommandResult.Kind.LIST, tasks.sortedByDateThenName(), q.page, limit);
+        case "name":
+            return page(CommandResult.Kind.LIST, tasks.sortedByName(), q.page, limit);
+        default:
+            return page(CommandResult.Kind.LIST, tasks.asList(), q.page, limit);
         }
+    }
 
-        if (input.equalsIgnoreCase("bye")) {
-            return "Bye. Don't forget to do your chores!";
+    /** Cuts one page out of a list; only the tasks on it are rendered. A limit of 0 or less shows all. */
+    private static CommandResult page(CommandResult.Kind kind, List<Task> all, int page, int limit)
+            throws WowoException {
+        int perPage = limit > 0 ? limit : Math.max(1, all.size());
+        int pages = Math.max(1, (all.size() + perPage - 1) / perPage);
+        if (page > pages) {
+            throw new WowoException("There " + (pages == 1 ? "is only 1 page." : "are only " + pages + " pages."));
         }
+        int from = (page - 1) * perPage;
+        int to = Math.min(all.size(), from + perPage);
+        return CommandResult.paged(kind, all.subList(from, to), from, all.size(), page, pages);
+    }
 
-        try {
-            if (input.equalsIgnoreCase("list")) {
-                return formatList(tasks.asList());
-
-            } else if (input.startsWith("mark ")) {
-                Task t = tasks.markOneBased(Parser.parseIndex(input));
-                persist();
-                return "Marked as done:\n  " + t;
-
-            } else if (input.startsWith("unmark ")) {
-                Task t = tasks.unmarkOneBased(Parser.parseIndex(input));
-                persist();
-                return "Marked as not done yet:\n  " + t;
-
-            } else if (input.startsWith("delete ")) {
-                Task removed = tasks.deleteOneBased(Parser.parseIndex(input));
-                persist();
-                return "Removed:\n  " + removed + "\nNow you have " + tasks.size() + " tasks.";
-
-            } else if (input.startsWith("todo")) {
-                String desc = Parser.parseTodoDesc(input);
-                Task t = tasks.add(new Todo(desc));
-                persist();
-                return "Added:\n  " + t + "\nNow you have " + tasks.size() + " tasks.";
-
-            } else if (input.startsWith("deadline ")) {
-                var p = Parser.parseDeadline(input);
-                Task t = tasks.add(new Deadline(p.desc, p.due));
-                persist();
-                return "Added:\n  " + t + "\nNow you have " + tasks.size() + " tasks.";
-
-            } else if (input.startsWith("event ")) {
-                var p = Parser.parseEvent(input);
-                Task t = tasks.add(new Event(p.desc, p.from, p.to));
-                persist();
-                return "Added:\n  " + t + "\nNow you have " + tasks.size() + " tasks.";
-
-            } else if (input.startsWith("find ")) {
-                String keyword = Parser.parseFind(input);
-                var matches = tasks.find(keyword);
-                return formatMatches(matches);
-
-            } else if (input.startsWith("sort")) {
-                Parser.parseSort(input);          // validates
-                tasks.sortByDateThenName();
-                persist();
-                return "Your tasks have been sorted:\n" + formatList(tasks.asList());
+    private CommandResult added(Task task, List<Task> clashes) throws WowoException {
+        Task t = tasks.add(task);
+        persist();
+        return CommandResult.added(t, tasks.size(), clashes);
+    }
 
-            } else {
-                throw new UnknownCommandException();
-            }
-        } catch (WowoException e) {
-            return e.getMessage();
+    private static CommandResult matches(List<Task> found) {
+        return CommandResult.shown(CommandResult.Kind.MATCHES, found);
+    }
+
+    /** Renders a result as the GUI reply. */
+    private String format(CommandResult r) {
+        switch (r.kind) {
+        case ADDED:
+            return "Added:\n  " + r.task + "\nNow you have " + r.size + " tasks."
+                    + formatClashes(r.clashes);
+        case MARKED:
+            return "Marked as done:\n  " + r.task;
+        case UNMARKED:
+            return "Marked as not done yet:\n  " + r.task;
+        case DELETED:
+            return "Removed:\n  " + r.task + "\nNow you have " + r.size + " tasks.";
+        case LIST:
+            return formatList(r);
+        case MATCHES:
+            return formatMatches(r.tasks);
+        case SORTED:
+            return "Your tasks have been sorted:\n" + formatList(r);
+        case INFO:
+            return r.message;
+        case EXIT:
+            return r.message != null ? r.message : "Bye. Don't forget to do your chores!";
+        default:
+            throw new AssertionError(r.kind);
         }
     }
 
-    private String formatList(List<Task> list) {
+    private String formatList(CommandResult r) {
+        List<Task> list = r.tasks;
         if (list.isEmpty()) {
             return "Your list is empty.";
         }
@@ -170,12 +450,34 @@ public class Wowo {
         StringBuilder sb = new StringBuilder("Here are your tasks:\n");
 
         for (int i = 0; i < list.size(); i++) {
-            sb.append(i + 1).append(". ").append(list.get(i)).append('\n');
+            sb.append(r.offset + i + 1).append(". ").append(list.get(i)).append('\n');
+        }
+        if (r.pages > 1) {
+            sb.append(Ui.pageFooter(r)).append('\n');
         }
 
         return sb.toString().trim();
     }
 
+    /** Existing events overlapping a new one, or none when clash warnings are turned off. */
+    private List<Task> clashesWith(Parser.EventParts p) {
+        if (!WARN_CLASHES) {
+            return List.of();
+        }
+        return tasks.findOverlapping(p.from, p.to.isBefore(p.from) ? p.from : p.to);
+    }
+
+    private String formatClashes(List<Task> clashes) {
+        if (clashes.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder("\nHeads up, this clashes with:");
+        for (Task t : clashes) {
+            sb.append("\n  ").append(t);
+        }
+        return sb.toString();
+    }
+
     private String formatMatches(List<Task> list) {
         if (list.isEmpty()) {
             return "No matching tasks found.";
@@ -190,14 +492,103 @@ public class Wowo {
         return sb.toString().trim();
     }
 
+    /**
+     * Runs the commands of a script without prompting, committing only every
+     * {@code checkpoint} changing commands (0 for once at the end). Blank lines and lines
+     * starting with {@code #} are skipped; a failing command is reported and the script goes on.
+     *
+     * @param in the script
+     * @param checkpoint changing commands between commits, or 0
+     * @return the number of commands that failed
+     * @throws IOException if the script cannot be read
+     */
+    int runBatch(BufferedReader in, int checkpoint) throws IOException {
+        commitEvery = checkpoint;
+        closeOnBye = true;
+        int failed = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            String input = line.trim();
+            if (input.isEmpty() || input.startsWith("#")) {
+                continue;
+            }
+            try {
+                CommandResult result = execute(input, this::show);
+                if (result.kind == CommandResult.Kind.EXIT) {
+                    return result.message == null ? failed : failed + 1;
+                }
+            } catch (WowoException e) {
+                failed++;
+                ui.showWarning(e.getMessage());
+            }
+        }
+        String problem = close();
+        if (problem != null) {
+            ui.showWarning(problem);
+            failed++;
+        }
+        return failed;
+    }
+
     /**
      * Application entry point.
+     * <pre>
+     *   (no arguments)                        interactive
+     *   --batch [file|-] [--checkpoint N]     run a script from a file or stdin
+     * </pre>
      *
-     * @param args command-line arguments (unused)
+     * @param args command-line arguments
      */
     public static void main(String[] args) {
+        if (args.length == 0 || !args[0].equals("--batch")) {
+            Wowo app = new Wowo();
+            app.closeOnExit();
+            app.loadOnStartup();
+            app.run();
+            return;
+        }
+
+        // Checked before the data file is opened, so a bad argument leaves nothing to close
+        String script = "-";
+        int checkpoint = 0;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--checkpoint")) {
+                checkpoint = i + 1 < args.length ? checkpointArg(args[++i]) : -1;
+                if (checkpoint < 0) {
+                    System.err.println(BATCH_USAGE);
+                    System.exit(1);
+                }
+            } else {
+                script = args[i];
+            }
+        }
         Wowo app = new Wowo();
+        app.closeOnExit();
         app.loadOnStartup();
-        app.run();
+        try (BufferedReader in = script.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Path.of(script), StandardCharsets.UTF_8)) {
+            if (app.runBatch(in, checkpoint) > 0) {
+                System.exit(1);
+            }
+        } catch (IOException e) {
+            app.ui.showWarning("Could not read " + script + ": " + e.getMessage());
+            app.close();
+            System.exit(1);
+        }
+    }
+
+    /** Closes the app when the JVM exits, e.g. on Ctrl-C, so the writer thread gets to write its queue. */
+    private void closeOnExit() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "wowo-shutdown"));
+    }
+
+    /** The value of {@code --checkpoint}, or -1 if it is not a non-negative whole number. */
+    static int checkpointArg(String s) {
+        try {
+            return Math.max(-1, Integer.parseInt(s));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 }
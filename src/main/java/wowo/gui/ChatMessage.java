@@ -0,0 +1,20 @@
+package wowo.gui;
+
+/**
+ * One message of the conversation shown in the chat list
+ */
+final class ChatMessage {
+    final String text;
+    final boolean fromBot;
+
+    /**
+     * Creates a message
+     * @param text what was said
+     * @param fromBot true if the bot said it, false for the user
+     */
+    ChatMessage(String text, boolean fromBot) {
+        assert text != null : "Message text must not be null";
+        this.text = text;
+        this.fromBot = fromBot;
+    }
+}
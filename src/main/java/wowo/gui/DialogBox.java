@@ -20,11 +20,10 @@ import javafx.scene.layout.HBox;
 public class DialogBox extends HBox {
     @FXML private Label dialog;
     @FXML private ImageView displayPicture;
+    private boolean flipped;
 
-    private DialogBox(String text, Image img) {
-        assert text != null : "Dialog text must not be null";
-        assert img != null : "Display image must not be null";
-
+    /** Loads an empty dialog box, filled in by {@link #show}; can be refilled any number of times. */
+    DialogBox() {
         try {
             FXMLLoader fxmlLoader =
                     new FXMLLoader(MainWindow.class.getResource("/view/DialogBox.fxml"));
@@ -37,16 +36,31 @@ public class DialogBox extends HBox {
 
         assert dialog != null : "FXML did not inject Label 'dialog'";
         assert displayPicture != null : "FXML did not inject ImageView 'displayPicture'";
+    }
+
+    /**
+     * Shows a message in this box
+     * @param text the message
+     * @param img the avatar of whoever said it
+     * @param bot true to lay it out as a bot message, avatar on the left
+     */
+    void show(String text, Image img, boolean bot) {
+        assert text != null : "Dialog text must not be null";
+        assert img != null : "Display image must not be null";
 
         dialog.setText(text);
         displayPicture.setImage(img);
+        if (bot != flipped) {
+            flip();
+        }
     }
 
-    /** Flip so the avatar is on the left and text on the right (bot style). */
+    /** Swap the avatar and text sides, between user style and bot style. */
     private void flip() {
         assert this.getChildren() != null : "DialogBox children must not be null";
 
-        this.setAlignment(Pos.TOP_LEFT);
+        flipped = !flipped;
+        this.setAlignment(flipped ? Pos.TOP_LEFT : Pos.TOP_RIGHT);
         ObservableList<Node> tmp = FXCollections.observableArrayList(this.getChildren());
         Collections.reverse(tmp);
         this.getChildren().setAll(tmp);
@@ -56,14 +70,16 @@ public class DialogBox extends HBox {
         assert text != null : "User dialog text must not be null";
         assert img != null : "User dialog image must not be null";
 
-        return new DialogBox(text, img);
+        DialogBox db = new DialogBox();
+        db.show(text, img, false);
+        return db;
     }
 
     public static DialogBox getBotDialog(String text, Image img) {
         assert text != null : "Bot dialog text must not be null";
         assert img != null : "Bot dialog image must not be null";
-        DialogBox db = new DialogBox(text, img);
-        db.flip();
+        DialogBox db = new DialogBox();
+        db.show(text, img, true);
         return db;
     }
 }
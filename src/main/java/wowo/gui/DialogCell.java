@@ -0,0 +1,45 @@
+package wowo.gui;
+
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.image.Image;
+import javafx.scene.layout.Region;
+
+/**
+ * List cell that shows a chat message in a {@link DialogBox}. The list only creates enough
+ * cells to fill the screen and refills them while scrolling, so each cell loads its dialog
+ * box once and a long conversation costs no more nodes than a short one.
+ */
+final class DialogCell extends ListCell<ChatMessage> {
+    /** Room left for the list's vertical scroll bar. */
+    private static final double SCROLL_BAR_ALLOWANCE = 20.0;
+
+    private final DialogBox box = new DialogBox();
+    private final Image userImage;
+    private final Image botImage;
+
+    /**
+     * Creates a cell for the given list
+     * @param list the list the cell belongs to; the dialog box wraps to its width
+     * @param userImage avatar shown next to user messages
+     * @param botImage avatar shown next to bot messages
+     */
+    DialogCell(ListView<ChatMessage> list, Image userImage, Image botImage) {
+        this.userImage = userImage;
+        this.botImage = botImage;
+        box.prefWidthProperty().bind(list.widthProperty().subtract(SCROLL_BAR_ALLOWANCE));
+        box.setMaxWidth(Region.USE_PREF_SIZE);
+        setText(null);
+    }
+
+    @Override
+    protected void updateItem(ChatMessage message, boolean empty) {
+        super.updateItem(message, empty);
+        if (empty || message == null) {
+            setGraphic(null);
+            return;
+        }
+        box.show(message.text, message.fromBot ? botImage : userImage, message.fromBot);
+        setGraphic(box);
+    }
+}
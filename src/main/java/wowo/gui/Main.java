@@ -1,6 +1,8 @@
 package wowo.gui;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -13,7 +15,11 @@ import wowo.Wowo;
  * Start the application after launch
  */
 public class Main extends Application {
+    private static final Logger LOG = Logger.getLogger(Main.class.getName());
+
+    private final long startNanos = System.nanoTime();
     private final Wowo bot = new Wowo();
+    private MainWindow controller;
 
     @Override
     public void start(Stage stage) {
@@ -24,17 +30,39 @@ public class Main extends Application {
             assert root != null : "MainWindow.fxml did not load a valid root node";
 
             // inject backend into controller *before* showing
-            MainWindow controller = fxmlLoader.getController();
+            controller = fxmlLoader.getController();
             assert controller != null : "Controller was not injected from FXML";
 
-            controller.init(bot);
+            controller.init(bot, startNanos);
 
             assert stage != null : "Stage must not be null";
             stage.setTitle("Wowo");
-            stage.setScene(new Scene(root));
+            Scene scene = new Scene(root);
+            logFirstFrame(scene);
+            stage.setScene(scene);
             stage.show();
         } catch (IOException e) {
             throw new RuntimeException("Failed to load MainWindow.fxml", e);
         }
     }
+
+    /** Logs the time from start to the first laid out pulse, i.e. the first frame. */
+    private void logFirstFrame(Scene scene) {
+        Runnable[] once = new Runnable[1];
+        once[0] = () -> {
+            scene.removePostLayoutPulseListener(once[0]);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            LOG.info("First frame " + millis + " ms after start");
+        };
+        scene.addPostLayoutPulseListener(once[0]);
+    }
+
+    @Override
+    public void stop() {
+        if (controller != null) {
+            controller.shutdown();
+        } else {
+            bot.close();
+        }
+    }
 }
@@ -1,28 +1,49 @@
 package wowo.gui;
 
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
-import javafx.scene.layout.VBox;
 import wowo.Wowo;
 
 /**
  * Contains the main user interface window
  */
 public class MainWindow {
-    @FXML private ScrollPane scrollPane;
-    @FXML private VBox dialogContainer;
+    /** Messages kept in the chat; older ones are dropped. 0 keeps all of them. */
+    private static final int MAX_MESSAGES = Integer.getInteger("wowo.gui.maxMessages", 0);
+    private static final String PENDING_TEXT = "...";
+    private static final long SHUTDOWN_WAIT_SECONDS = 10;
+    private static final int LOAD_CHUNK = 10_000;
+    private static final Logger LOG = Logger.getLogger(MainWindow.class.getName());
+
+    @FXML private ListView<ChatMessage> dialogList;
     @FXML private TextField userInput;
     @FXML private Button sendButton;
 
     private final Image botImage = loadImage("/images/DaWowo.png");
     private final Image userImage = loadImage("/images/DaUser.png");
+    private final ObservableList<ChatMessage> messages = FXCollections.observableArrayList();
+    /** Runs commands off the FX thread, one at a time and in the order they were sent. */
+    private final ExecutorService commandThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "wowo-commands");
+        t.setDaemon(true);
+        return t;
+    });
 
     private Wowo bot;
+    /** The message showing load progress, replaced on every update. */
+    private ChatMessage loadStatus;
 
     private static Image loadImage(String path) {
         var in = Objects.requireNonNull(
@@ -34,43 +55,116 @@ public class MainWindow {
     /** Called by FXMLLoader after @FXML fields are injected. */
     @FXML
     public void initialize() {
-        assert scrollPane != null : "FXML injection failed: scrollPane is null";
-        assert dialogContainer != null : "FXML injection failed: dialogContainer is null";
+        assert dialogList != null : "FXML injection failed: dialogList is null";
         assert userInput != null : "FXML injection failed: userInput is null";
         assert sendButton != null : "FXML injection failed: sendButton is null";
 
-        // auto-scroll when new dialogs are added
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
+        // Only the visible messages get a cell; cells are reused while scrolling
+        dialogList.setItems(messages);
+        dialogList.setCellFactory(list -> new DialogCell(list, userImage, botImage));
     }
 
-    /** Inject the backend instance. Called from Main after loading FXML. */
-    public void init(Wowo bot) {
+    /**
+     * Inject the backend instance and start loading its saved tasks on the command thread.
+     * Commands sent meanwhile queue behind the load, so they see the whole list.
+     * Called from Main after loading FXML.
+     *
+     * @param bot the backend
+     * @param startNanos {@link System#nanoTime()} when the application started, for the load log
+     */
+    public void init(Wowo bot, long startNanos) {
         this.bot = bot;
         // optional greeting
-        dialogContainer.getChildren().add(
-                DialogBox.getBotDialog("Hello! I'm Wowo.\nHow can I help?", botImage)
-        );
+        append(new ChatMessage("Hello! I'm Wowo.\nHow can I help?", true));
+
+        loadStatus = new ChatMessage("Loading your tasks...", true);
+        append(loadStatus);
+        commandThread.execute(() -> {
+            String problem = bot.loadProgressively(LOAD_CHUNK, (loaded, total) ->
+                    Platform.runLater(() -> showLoadStatus("Loading your tasks... " + loaded + "/" + total)));
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            LOG.info("Tasks fully loaded " + millis + " ms after start");
+            Platform.runLater(() -> showLoadStatus(problem != null ? problem : "Your tasks are loaded."));
+        });
     }
 
-    /** Send button and Enter key handler. */
+    private void showLoadStatus(String text) {
+        ChatMessage next = new ChatMessage(text, true);
+        resolve(loadStatus, next);
+        loadStatus = next;
+    }
+
+    /** Adds messages at the bottom, drops the oldest beyond the cap, and scrolls down. */
+    private void append(ChatMessage... added) {
+        messages.addAll(added);
+        if (MAX_MESSAGES > 0 && messages.size() > MAX_MESSAGES) {
+            messages.remove(0, messages.size() - MAX_MESSAGES);
+        }
+        dialogList.scrollTo(messages.size() - 1);
+    }
+
+    /** Replaces a pending reply with the real one, or appends it if the pending one was dropped. */
+    private void resolve(ChatMessage pending, ChatMessage reply) {
+        // The pending reply is near the end unless many commands are queued
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) == pending) {
+                messages.set(i, reply);
+                return;
+            }
+        }
+        append(reply);
+    }
+
+    /**
+     * Lets queued commands finish, then closes the backend behind them on the command thread, so
+     * their changes are on disk before the JVM exits. Called from Main when the application stops.
+     */
+    public void shutdown() {
+        if (bot != null) {
+            commandThread.execute(() -> {
+                String problem = bot.close();
+                if (problem != null) {
+                    LOG.warning(problem);
+                }
+            });
+        }
+        commandThread.shutdown();
+        try {
+            if (!commandThread.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                LOG.warning("Commands still running after " + SHUTDOWN_WAIT_SECONDS + " s; changes may be lost");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Send button and Enter key handler. The command runs on the command thread; until its
+     * reply is posted back, a pending reply stands in its place and the input stays usable.
+     */
     @FXML
     private void handleUserInput() {
         assert userInput != null : "userInput field must not be null";
-        assert dialogContainer != null : "dialogContainer must not be null";
         assert bot != null : "Bot must be initialized before handling input";
 
         String input = userInput.getText();
         if (input == null || input.isBlank()) {
             return;
         }
+        userInput.clear();
 
-        String response = bot.getResponse(input);
-
-        dialogContainer.getChildren().addAll(
-                DialogBox.getUserDialog(input, userImage),
-                DialogBox.getBotDialog(response, botImage)
-        );
+        ChatMessage pending = new ChatMessage(PENDING_TEXT, true);
+        append(new ChatMessage(input, false), pending);
 
-        userInput.clear();
+        commandThread.execute(() -> {
+            String response;
+            try {
+                response = bot.getResponse(input);
+            } catch (RuntimeException e) {
+                response = "Something went wrong: " + e;
+            }
+            ChatMessage reply = new ChatMessage(response, true);
+            Platform.runLater(() -> resolve(pending, reply));
+        });
     }
 }
@@ -0,0 +1,23 @@
+package wowo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CommandRegistryTest {
+    @Test
+    public void execute_dispatchesOnFirstWordIgnoringCase() throws WowoException {
+        CommandRegistry registry = new CommandRegistry()
+                .register("list", input -> CommandResult.shown(CommandResult.Kind.LIST, List.of()))
+                .register("todo", input -> CommandResult.added(
+                        new Todo(Parser.parseTodoDesc(input)), 1, List.of()));
+
+        assertEquals(CommandResult.Kind.LIST, registry.execute("LIST").kind);
+        assertEquals("read", registry.execute("todo read").task.getName());
+        assertThrows(EmptyDescriptionException.class, () -> registry.execute("todo"));
+        assertThrows(UnknownCommandException.class, () -> registry.execute("todoread"));
+    }
+}
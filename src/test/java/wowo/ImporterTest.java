@@ -0,0 +1,87 @@
+package wowo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ImporterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void calendar_eventsAndTodos() throws Exception {
+        Path file = dir.resolve("cal.ics");
+        Files.writeString(file, String.join("\r\n",
+                "BEGIN:VCALENDAR",
+                "BEGIN:VEVENT",
+                "SUMMARY:book fair\\, with\\nfriends",
+                "DTSTART;VALUE=DATE:20191130",
+                "DTEND;VALUE=DATE:20191205",
+                "END:VEVENT",
+                "BEGIN:VTODO",
+                "SUMMARY:Return a very long",
+                "  book title",
+                "DUE;TZID=Asia/Singapore:20191202T235900",
+                "STATUS:COMPLETED",
+                "END:VTODO",
+                "BEGIN:VEVENT",
+                "SUMMARY:no start",
+                "END:VEVENT",
+                "END:VCALENDAR"), StandardCharsets.UTF_8);
+        List<Task> tasks = new ArrayList<>();
+        Importer.Report report = Importer.importFile(file, tasks::addAll);
+
+        assertEquals(2, report.imported);
+        assertEquals("E|0|book fair, with friends|2019-11-30|2019-12-04", tasks.get(0).serialize());
+        assertEquals("D|1|Return a very long book title|2019-12-02", tasks.get(1).serialize());
+        assertEquals(List.of("line 13: VEVENT has no DTSTART"), report.rejections);
+    }
+
+    @Test
+    public void csv_quotedFieldsAndRejectedRows() throws Exception {
+        Path file = dir.resolve("tasks.csv");
+        Files.writeString(file, String.join("\n",
+                "Done,Description,Due,From,To",
+                "yes,\"water plants, daily\",,,",
+                ",\"say \"\"hi\"\"\",2019-12-02,,",
+                ",camp,,1/12/2019,3/12/2019",
+                ",bad date,2019-13-40,,",
+                "",
+                ",\"spans",
+                "two lines\",,,"), StandardCharsets.UTF_8);
+        List<Task> tasks = new ArrayList<>();
+        Importer.Report report = Importer.importFile(file, tasks::addAll);
+
+        assertEquals(4, report.imported);
+        assertEquals("T|1|water plants, daily", tasks.get(0).serialize());
+        assertEquals("D|0|say \"hi\"|2019-12-02", tasks.get(1).serialize());
+        assertEquals("E|0|camp|2019-12-01|2019-12-03", tasks.get(2).serialize());
+        assertEquals("T|0|spans two lines", tasks.get(3).serialize());
+        assertEquals(1, report.rejected);
+        assertTrue(report.rejections.get(0).startsWith("line 5: "));
+    }
+
+    @Test
+    public void csv_byteOrderMarkAndLongHeaderWithoutExtension() throws Exception {
+        Path bom = dir.resolve("excel.csv");
+        Files.writeString(bom, "\uFEFFDescription,Due\nreturn book,2019-12-02\n", StandardCharsets.UTF_8);
+        List<Task> tasks = new ArrayList<>();
+        assertEquals(1, Importer.importFile(bom, tasks::addAll).imported);
+        assertEquals("D|0|return book|2019-12-02", tasks.get(0).serialize());
+
+        // The first line is peeked to pick the format, however long it is
+        Path wide = dir.resolve("export");
+        Files.writeString(wide, "description," + "x".repeat(100_000) + "\nwater plants,\n", StandardCharsets.UTF_8);
+        tasks.clear();
+        assertEquals(1, Importer.importFile(wide, tasks::addAll).imported);
+        assertEquals("T|0|water plants", tasks.get(0).serialize());
+    }
+}
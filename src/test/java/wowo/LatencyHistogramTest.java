@@ -0,0 +1,24 @@
+package wowo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    public void percentiles_withinOneSixteenth() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 10_000; v++) {
+            h.record(v * 1_000);
+        }
+
+        assertEquals(10_000, h.count());
+        assertEquals(10_000_000, h.max());
+        long p50 = h.percentile(0.5);
+        long p99 = h.percentile(0.99);
+        assertTrue(p50 >= 5_000_000 && p50 <= 5_000_000 * 17 / 16, "p50 " + p50);
+        assertTrue(p99 >= 9_900_000 && p99 <= 10_000_000, "p99 " + p99);
+        assertEquals(10_000_000, h.percentile(1.0));
+    }
+}
@@ -0,0 +1,86 @@
+package wowo;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ParserTest {
+    @Test
+    public void parseDeadline_bothDateShapes() throws WowoException {
+        Parser.DeadlineParts iso = Parser.parseDeadline("deadline  return book  /by 2019-12-02 ");
+        assertEquals("return book", iso.desc);
+        assertEquals(LocalDate.of(2019, 12, 2), iso.due);
+
+        // Slash dates past the end of the month fall back to its last day
+        assertEquals(LocalDate.of(2019, 2, 28), Parser.parseDeadline("deadline x /by 31/2/2019").due);
+        assertThrows(WowoException.class, () -> Parser.parseDeadline("deadline x /by 2019-02-30"));
+        assertThrows(EmptyDescriptionException.class, () -> Parser.parseDeadline("deadline /by 2019-12-02"));
+    }
+
+    @Test
+    public void parseEvent_toBeforeFromIsRejected() throws WowoException {
+        Parser.EventParts p = Parser.parseEvent("event camp /from 1/12/2019 /to 2019-12-03");
+        assertEquals("camp", p.desc);
+        assertEquals(LocalDate.of(2019, 12, 1), p.from);
+        assertEquals(LocalDate.of(2019, 12, 3), p.to);
+        assertThrows(WowoException.class, () -> Parser.parseEvent("event camp /to 2019-12-03 /from 2019-12-01"));
+    }
+
+    @Test
+    public void parseIndex_digitsOnly() throws WowoException {
+        assertEquals(12, Parser.parseIndex("mark  12 "));
+        assertThrows(EmptyDescriptionException.class, () -> Parser.parseIndex("mark "));
+        assertThrows(NonIntegerIndexException.class, () -> Parser.parseIndex("mark 1x"));
+        assertThrows(NonIntegerIndexException.class, () -> Parser.parseIndex("mark 99999999999"));
+    }
+
+    @Test
+    public void parseIndices_rangesAndLists() throws WowoException {
+        assertArrayEquals(new int[] {1, 2, 3, 5, 9}, Parser.parseIndices("mark 1-3, 5,9,2", 10));
+        assertArrayEquals(new int[] {4}, Parser.parseIndices("delete 4", 10));
+        assertThrows(InvalidTaskIndexException.class, () -> Parser.parseIndices("delete 8-11", 10));
+        assertThrows(NonIntegerIndexException.class, () -> Parser.parseIndices("delete 5-3", 10));
+        assertThrows(NonIntegerIndexException.class, () -> Parser.parseIndices("delete 1,,2", 10));
+        // A single index reads like parseIndex: a sign is allowed and a negative one is out of range
+        assertArrayEquals(new int[] {2}, Parser.parseIndices("mark +2", 10));
+        assertThrows(InvalidTaskIndexException.class, () -> Parser.parseIndices("mark -3", 10));
+        assertThrows(NonIntegerIndexException.class, () -> Parser.parseIndices("mark 99999999999", 10));
+    }
+
+    @Test
+    public void parseList_orderPageAndLimit() throws WowoException {
+        Parser.ListQuery q = Parser.parseList("list name 3 --limit 20");
+        assertEquals("name", q.order);
+        assertEquals(3, q.page);
+        assertEquals(20, q.limit);
+
+        Parser.ListQuery all = Parser.parseList("list");
+        assertEquals("", all.order);
+        assertEquals(1, all.page);
+        assertEquals(0, all.limit);
+        assertEquals(5, Parser.parseList("LIST --limit 5").limit);
+        assertThrows(WowoException.class, () -> Parser.parseList("list 0"));
+        assertThrows(WowoException.class, () -> Parser.parseList("list --limit"));
+        assertThrows(WowoException.class, () -> Parser.parseList("list 2 date"));
+    }
+
+    @Test
+    public void parseDateQuery_wordsSplitAtAnyWhitespace() throws WowoException {
+        Parser.DateRange between = Parser.parseDateQuery("due  between\t2019-12-01 AND 3/12/2019 ");
+        assertEquals(LocalDate.of(2019, 12, 1), between.from);
+        assertEquals(LocalDate.of(2019, 12, 3), between.to);
+        assertEquals(LocalDate.of(2019, 12, 1), Parser.parseDateQuery("due before 2019-12-02").to);
+        assertEquals(LocalDate.of(2019, 12, 2), Parser.parseDateQuery(" on 2/12/2019").from);
+        assertThrows(EmptyDescriptionException.class, () -> Parser.parseDateQuery("due before"));
+        assertThrows(WowoException.class, () -> Parser.parseDateQuery("due between 2019-12-01 and"));
+        assertThrows(WowoException.class, () -> Parser.parseDateQuery("due soon 2019-12-01"));
+
+        Parser.DateRange busy = Parser.parseBusy("busy 2019-12-01   2019-12-03");
+        assertEquals(LocalDate.of(2019, 12, 3), busy.to);
+        assertThrows(EmptyDescriptionException.class, () -> Parser.parseBusy("busy 1 2 3"));
+    }
+}
@@ -0,0 +1,47 @@
+package wowo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PersistenceWriterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void close_flushesQueuedCommits() throws WowoException {
+        Path file = dir.resolve("wowo.txt");
+        Storage storage = new Storage(file, true);
+        PersistenceWriter writer = new PersistenceWriter(storage, PersistenceWriter.Durability.NONE, 10_000, 1_000);
+        TaskList tasks = new TaskList();
+        tasks.setListener(writer);
+
+        for (int i = 0; i < 100; i++) {
+            tasks.add(new Todo("task " + i));
+            writer.commit(tasks.asList());
+        }
+        tasks.deleteOneBased(1);
+        writer.commit(tasks.asList());
+        writer.close();
+
+        assertEquals(99, new Storage(file, true).load().size());
+    }
+
+    @Test
+    public void commandDurability_writtenBeforeReturn() throws WowoException {
+        Path file = dir.resolve("wowo.txt");
+        Storage storage = new Storage(file, true);
+        PersistenceWriter writer = new PersistenceWriter(storage, PersistenceWriter.Durability.COMMAND);
+        TaskList tasks = new TaskList();
+        tasks.setListener(writer);
+
+        tasks.add(new Todo("Read book"));
+        writer.commit(tasks.asList());
+
+        assertEquals(1, new Storage(file, true).load().size());
+        writer.close();
+    }
+}
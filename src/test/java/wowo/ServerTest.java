@@ -0,0 +1,149 @@
+package wowo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ServerTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void reply_dotStuffedAndTerminated() throws IOException {
+        StringWriter sw = new StringWriter();
+        BufferedWriter out = new BufferedWriter(sw);
+        Server.reply(out, ".hidden\nplain\n..two");
+        assertEquals("..hidden\nplain\n...two\n.\n", sw.toString());
+    }
+
+    @Test
+    public void sessions_switchListsAndEnd() throws Exception {
+        try (Server server = start(2); Client a = new Client(server.port()); Client b = new Client(server.port())) {
+            assertTrue(a.send("use home").contains("home"));
+            assertTrue(a.send("todo water plants").startsWith("Added"));
+            assertTrue(b.send("todo write report").startsWith("Added"));
+            assertTrue(b.send("list").contains("write report"));
+            assertTrue(a.send("list").contains("water plants"));
+            assertTrue(a.send("use ../etc").startsWith("A list name"));
+            assertTrue(a.send("lists").contains("2 of 2 lists resident"));
+
+            Files.writeString(dir.resolve("outside.csv"), "description\nsecret\n");
+            assertTrue(a.send("import " + dir.resolve("outside.csv")).contains("not available"));
+            assertFalse(a.send("list").contains("secret"));
+
+            assertTrue(b.send("bye").startsWith("Bye, client"));
+            assertNull(b.in.readLine());
+        }
+        assertEquals(1, new Storage(dir.resolve("home.txt"), true).load().size());
+        assertEquals(1, new Storage(dir.resolve(Tenants.DEFAULT + ".txt"), true).load().size());
+    }
+
+    @Test
+    public void concurrentSessions_noLostCommands() throws Exception {
+        int clients = 8;
+        int each = 50;
+        try (Server server = start(4)) {
+            ExecutorService pool = Executors.newFixedThreadPool(clients);
+            List<Future<?>> done = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                int id = c;
+                done.add(pool.submit(() -> {
+                    try (Client client = new Client(server.port())) {
+                        client.send("use list" + id % 2);
+                        for (int i = 0; i < each; i++) {
+                            client.send("todo client " + id + " task " + i);
+                        }
+                        client.send("bye");
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : done) {
+                f.get();
+            }
+            pool.shutdown();
+        }
+        int total = new Storage(dir.resolve("list0.txt"), true).load().size()
+                + new Storage(dir.resolve("list1.txt"), true).load().size();
+        assertEquals(clients * each, total);
+    }
+
+    @Test
+    public void loadGenerator_allRequestsServed() throws Exception {
+        try (Server server = start(2)) {
+            String report = new LoadGenerator(server.port(), 4, 20, 1, 20, 2).run();
+            assertTrue(report.contains("(20 still served)"), report);
+            assertTrue(report.contains(" 0 failed"), report);
+        }
+    }
+
+    private Server start(int capacity) throws IOException {
+        Server server = new Server(new Tenants(dir, capacity), 0);
+        Thread t = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        t.setDaemon(true);
+        t.start();
+        return server;
+    }
+
+    /** A line protocol client that undoes the dot stuffing. */
+    private static final class Client implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final BufferedWriter out;
+
+        private Client(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            assertTrue(readReply().startsWith("Hello"));
+        }
+
+        private String send(String command) throws IOException {
+            out.write(command);
+            out.write('\n');
+            out.flush();
+            return readReply();
+        }
+
+        private String readReply() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            String line;
+            while ((line = in.readLine()) != null && !line.equals(Server.END)) {
+                sb.append(line.startsWith(Server.END) ? line.substring(1) : line).append('\n');
+            }
+            return sb.toString().trim();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
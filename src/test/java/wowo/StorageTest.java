@@ -0,0 +1,194 @@
+package wowo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StorageTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void journal_replayedOnLoad() throws WowoException {
+        Path file = dir.resolve("wowo.txt");
+        Storage storage = new Storage(file, true);
+        TaskList tasks = new TaskList();
+        tasks.setListener(storage);
+
+        tasks.add(new Todo("Read book"));
+        tasks.add(new Deadline("Return book", LocalDate.of(2019, 12, 2)));
+        tasks.markOneBased(2);
+        tasks.deleteOneBased(1);
+        storage.commit(tasks.asList());
+
+        assertTrue(Files.exists(dir.resolve("wowo.txt.journal")));
+        List<Task> loaded = new Storage(file, true).load();
+        assertEquals(1, loaded.size());
+        assertEquals("D|1|Return book|2019-12-02", loaded.get(0).serialize());
+    }
+
+    @Test
+    public void journal_tornLastLineSkippedButCorruptRecordReported() throws Exception {
+        Path file = dir.resolve("wowo.txt");
+        Path journal = dir.resolve("wowo.txt.journal");
+        Files.writeString(file, "T|0|caf\u00e9\n", StandardCharsets.UTF_8);
+        Files.writeString(journal, "+|D | 0 | tea | 2019-12-02\nR|1\r\nX|1\n+|E|0|fair|2019-1", StandardCharsets.UTF_8);
+        List<Task> loaded = new Storage(file, true).load();
+        assertEquals(1, loaded.size());
+        assertEquals("D|1|tea|2019-12-02", loaded.get(0).serialize());
+
+        Files.writeString(journal, "X|1\nX|7\n+|T|0|late\n", StandardCharsets.UTF_8);
+        WowoException e = assertThrows(WowoException.class, () -> new Storage(file, true).load());
+        assertTrue(e.getMessage().contains("line 2"), e.getMessage());
+        Files.writeString(journal, "Q|1\n", StandardCharsets.UTF_8);
+        assertThrows(WowoException.class, () -> new Storage(file, true).load());
+    }
+
+    @Test
+    public void journal_compactedPastThreshold() throws WowoException {
+        Path file = dir.resolve("wowo.txt");
+        Storage storage = new Storage(file, true);
+        storage.setCompactThreshold(64);
+        TaskList tasks = new TaskList();
+        tasks.setListener(storage);
+
+        for (int i = 0; i < 50; i++) {
+            tasks.add(new Todo("task " + i));
+            storage.commit(tasks.asList());
+        }
+        storage.close();
+
+        assertFalse(Files.exists(dir.resolve("wowo.txt.journal.old")));
+        assertEquals(50, new Storage(file, true).load().size());
+    }
+
+    @Test
+    public void save_dropsJournal() throws WowoException {
+        Path file = dir.resolve("wowo.txt");
+        Storage storage = new Storage(file, true);
+        TaskList tasks = new TaskList();
+        tasks.setListener(storage);
+
+        tasks.add(new Todo("Read book"));
+        storage.commit(tasks.asList());
+        storage.save(tasks.asList());
+
+        assertFalse(Files.exists(dir.resolve("wowo.txt.journal")));
+        assertEquals(1, new Storage(file, true).load().size());
+    }
+
+    @Test
+    public void save_sameBytesAsSerialize() throws Exception {
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("Read book"));
+        tasks.add(new Deadline("Return book", LocalDate.of(2019, 12, 2)));
+        tasks.add(new Event("Caf\u00e9 meetup", LocalDate.of(2019, 12, 2), LocalDate.of(2019, 12, 3)));
+        tasks.get(1).markDone();
+        List<String> lines = new ArrayList<>();
+        for (Task t : tasks) {
+            lines.add(t.serialize());
+        }
+        Path expected = dir.resolve("expected.txt");
+        Files.write(expected, lines, StandardCharsets.UTF_8);
+
+        Path file = dir.resolve("wowo.txt");
+        new Storage(file).save(tasks);
+
+        assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(file));
+        assertEquals(lines.get(2), new Storage(file).load().get(2).serialize());
+    }
+
+    @Test
+    public void binary_convertedBackLosslessly() throws Exception {
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("Read book"));
+        tasks.add(new Deadline("Return book", LocalDate.of(2019, 12, 2)));
+        tasks.add(new Event("Caf\u00e9 meetup", LocalDate.of(1969, 12, 2), LocalDate.of(2019, 12, 3)));
+        tasks.get(2).markDone();
+        Path text = dir.resolve("wowo.txt");
+        Path binary = dir.resolve("wowo.bin");
+        Path back = dir.resolve("back.txt");
+        new Storage(text).save(tasks);
+
+        Storage.convert(text, binary, Storage.Format.BINARY);
+        Storage.convert(binary, back, Storage.Format.TEXT);
+
+        Storage loaded = new Storage(binary);
+        assertEquals(3, loaded.load().size());
+        assertEquals(Storage.Format.BINARY, loaded.getFormat());
+        assertArrayEquals(Files.readAllBytes(text), Files.readAllBytes(back));
+    }
+
+    @Test
+    public void binary_corruptHeaderAndTruncatedRecordRejected() throws Exception {
+        Path binary = dir.resolve("wowo.bin");
+        ByteBuffer header = ByteBuffer.allocate(12)
+                .putInt(BinaryCodec.MAGIC).putShort(BinaryCodec.VERSION).putShort((short) 0)
+                .putInt(Integer.MAX_VALUE - 8);
+        Files.write(binary, header.array());
+        assertThrows(WowoException.class, () -> new Storage(binary).load());
+
+        new Storage(dir.resolve("wowo.txt")).save(List.of(new Todo("Read book"), new Todo("Return book")));
+        Storage.convert(dir.resolve("wowo.txt"), binary, Storage.Format.BINARY);
+        byte[] whole = Files.readAllBytes(binary);
+        Files.write(binary, Arrays.copyOf(whole, whole.length - 3));
+        assertThrows(WowoException.class, () -> new Storage(binary).load());
+    }
+
+    @Test
+    public void parallelDecode_sameTasksInFileOrder() throws WowoException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            sb.append("T|").append(i % 2).append("|task ").append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+            if (i % 7 == 0) {
+                sb.append("\n  \nX|0|unknown\nD|0|truncated\n");
+            }
+            if (i % 5 == 0) {
+                sb.append("E|0|event ").append(i).append("|2019-12-01|2019-12-0").append(1 + i % 9).append('\n');
+            }
+        }
+        ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        List<Task> expected = TaskCodec.decode(buf, 0, buf.limit(), new ArrayList<>());
+
+        for (int chunks : new int[] {1, 2, 7, 64, 5000}) {
+            List<Task> actual = TaskCodec.decodeParallel(buf, chunks);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).serialize(), actual.get(i).serialize());
+            }
+        }
+    }
+
+    @Test
+    public void text_malformedUtf8Rejected() throws Exception {
+        byte[] good = "T|0|caf\u00e9\nT|1|tea\n".getBytes(StandardCharsets.UTF_8);
+        List<Task> tasks = TaskCodec.decode(ByteBuffer.wrap(good), 0, good.length, new ArrayList<>());
+        assertEquals("T|0|caf\u00e9", tasks.get(0).serialize());
+
+        // A lone continuation byte, in a name and in a line the loader would skip
+        byte[] badName = {'T', '|', '0', '|', 'c', 'a', (byte) 0x80, '\n'};
+        byte[] badSkipped = {'?', (byte) 0xC3, '\n', 'T', '|', '0', '|', 'x', '\n'};
+        for (byte[] bad : List.of(badName, badSkipped)) {
+            Path file = dir.resolve("bad.txt");
+            Files.write(file, bad);
+            WowoException e = assertThrows(WowoException.class, () -> new Storage(file, true).load());
+            assertTrue(e.getMessage().contains("UTF-8"), e.getMessage());
+            assertThrows(WowoException.class,
+                    () -> TaskCodec.decodeParallel(ByteBuffer.wrap(bad), 2));
+        }
+    }
+}
@@ -3,7 +3,22 @@ package wowo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToIntFunction;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TaskListTest {
     private TaskList tasks;
@@ -29,4 +44,262 @@ public class TaskListTest {
         assertEquals(1, tasks.size());
         assertEquals("Read book", tasks.getTask(1).getName());
     }
+
+    @Test
+    public void find_ignoresCaseAndKeepsOrder() throws WowoException {
+        tasks.addMany(new Todo("Read BOOK"), new Todo("borrow book"), new Todo("Buy milk"), new Todo("bookshelf"));
+        tasks.deleteOneBased(2);
+
+        List<Task> matches = tasks.find("Book");
+        assertEquals(2, matches.size());
+        assertEquals("Read BOOK", matches.get(0).getName());
+        assertEquals("bookshelf", matches.get(1).getName());
+        assertEquals(1, tasks.find("mi").size());
+        assertTrue(tasks.find("books!").isEmpty());
+    }
+
+    @Test
+    public void findByDate_rangeInDateOrder() throws WowoException {
+        tasks.addMany(
+                new Deadline("Return book", LocalDate.of(2019, 12, 2)),
+                new Event("Book fair", LocalDate.of(2019, 11, 30), LocalDate.of(2019, 12, 4)),
+                new Todo("Read book"),
+                new Deadline("Pay fine", LocalDate.of(2020, 1, 1)));
+        tasks.deleteOneBased(4);
+
+        List<Task> before = tasks.findByDate(null, LocalDate.of(2019, 12, 2));
+        assertEquals(2, before.size());
+        assertEquals("Book fair", before.get(0).getName());
+        assertEquals(1, tasks.findByDate(LocalDate.of(2019, 12, 4), LocalDate.of(2019, 12, 4)).size());
+        assertTrue(tasks.findByDate(LocalDate.of(2019, 12, 5), null).isEmpty());
+    }
+
+    @Test
+    public void findOverlapping_onlyClashingEvents() throws WowoException {
+        tasks.addMany(
+                new Event("Camp", LocalDate.of(2019, 12, 1), LocalDate.of(2019, 12, 5)),
+                new Event("Trip", LocalDate.of(2019, 12, 4), LocalDate.of(2019, 12, 9)),
+                new Deadline("Return book", LocalDate.of(2019, 12, 4)),
+                new Event("Party", LocalDate.of(2019, 12, 20), LocalDate.of(2019, 12, 20)));
+        tasks.deleteOneBased(1);
+
+        List<Task> busy = tasks.findOverlapping(LocalDate.of(2019, 12, 3), LocalDate.of(2019, 12, 6));
+        assertEquals(1, busy.size());
+        assertEquals("Trip", busy.get(0).getName());
+        assertEquals(2, tasks.findOn(LocalDate.of(2019, 12, 4)).size());
+    }
+
+    @Test
+    public void sortedViews_followChanges() throws WowoException {
+        tasks.addMany(
+                new Todo("water plants"),
+                new Deadline("Return book", LocalDate.of(2019, 12, 2)),
+                new Event("book fair", LocalDate.of(2019, 11, 30), LocalDate.of(2019, 12, 4)));
+        tasks.add(new Deadline("Pay fine", LocalDate.of(2019, 12, 1)));
+        tasks.deleteOneBased(2);
+
+        List<Task> byDate = tasks.sortedByDateThenName();
+        assertEquals("book fair", byDate.get(0).getName());
+        assertEquals("water plants", byDate.get(2).getName());
+        assertEquals("Pay fine", tasks.sortedByName().get(1).getName());
+
+        tasks.sortByDateThenName();
+        assertEquals(byDate, tasks.asList());
+
+        // The name index is renumbered, not rebuilt, yet matches follow the new order
+        tasks.add(new Todo("plant fair"));
+        tasks.sortByName();
+        assertEquals(List.of("plant fair", "water plants"), names(tasks.find("plant")));
+        assertEquals(List.of("book fair", "plant fair"), names(tasks.find("fair")));
+    }
+
+    private static List<String> names(List<Task> found) {
+        List<String> out = new ArrayList<>();
+        for (Task t : found) {
+            out.add(t.getName());
+        }
+        return out;
+    }
+
+    @Test
+    public void treeBacking_positionalOpsMatchArray() throws WowoException {
+        TaskList tree = new TaskList(TaskList.Backing.TREE);
+        for (int i = 0; i < 50; i++) {
+            tree.add(new Todo("task " + i));
+            tasks.add(new Todo("task " + i));
+        }
+        for (int n : new int[] {1, 10, 48, 1, 20}) {
+            tree.deleteOneBased(n);
+            tasks.deleteOneBased(n);
+        }
+        tree.markOneBased(3);
+        tasks.markOneBased(3);
+
+        assertEquals(tasks.size(), tree.size());
+        for (int i = 1; i <= tasks.size(); i++) {
+            assertEquals(tasks.getTask(i).toString(), tree.getTask(i).toString());
+        }
+    }
+
+    @Test
+    public void compactBacking_keepsChangesAndAnswersQueries() throws WowoException {
+        TaskList compact = new TaskList(TaskList.Backing.COMPACT);
+        compact.addMany(
+                new Todo("water plants"),
+                new Deadline("Return book", LocalDate.of(2019, 12, 2)),
+                new Event("book fair", LocalDate.of(2019, 11, 30), LocalDate.of(2019, 12, 4)));
+        compact.markOneBased(2);
+        compact.deleteOneBased(1);
+
+        assertEquals("D|1|Return book|2019-12-02", compact.getTask(1).serialize());
+        assertEquals(2, compact.find("BOOK").size());
+        assertEquals("book fair", compact.findOverlapping(
+                LocalDate.of(2019, 12, 3), LocalDate.of(2019, 12, 3)).get(0).getName());
+        assertEquals("book fair", compact.sortedByDateThenName().get(0).getName());
+        assertTrue(compact.bytesPerTask() > 0);
+    }
+
+    @Test
+    public void compactStore_appendAfterArenaShrank() {
+        TaskStore store = new TaskStore();
+        store.add(new Todo("a".repeat(10)));
+        store.add(new Todo("b".repeat(1500)));
+        store.add(new Todo("c".repeat(10)));
+        // Dropping the long name shrinks the arena below where the third name used to start
+        store.remove(2);
+        store.remove(1);
+        store.add(new Todo("d".repeat(200)));
+        store.set(1, new Todo("e"));
+        // Appending into the old third slot compacts the arena again
+        store.add(new Todo("f".repeat(60)));
+
+        assertEquals(3, store.size());
+        assertEquals("a".repeat(10), store.get(0).getName());
+        assertEquals("e", store.get(1).getName());
+        assertEquals("f".repeat(60), store.get(2).getName());
+    }
+
+    @Test
+    public void deleteAll_removesInOnePass() throws WowoException {
+        for (int i = 1; i <= 10; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        List<Task> removed = tasks.deleteAllOneBased(new int[] {1, 5, 6, 10});
+
+        assertEquals(4, removed.size());
+        assertEquals(6, tasks.size());
+        assertEquals("task 7", tasks.getTask(4).getName());
+        assertTrue(tasks.find("task 5").isEmpty());
+    }
+
+    @Test
+    public void concurrent_noLostUpdates() throws Exception {
+        int writers = 8;
+        int perWriter = 500;
+        for (TaskList.Backing backing : TaskList.Backing.values()) {
+            TaskList shared = new TaskList(backing, true);
+            stress(writers, w -> {
+                for (int i = 0; i < perWriter; i++) {
+                    shared.add(new Todo("w" + w + " task " + i));
+                }
+            }, shared, snapshot -> snapshot.size());
+
+            List<Task> all = shared.asList();
+            Set<String> names = new HashSet<>();
+            for (Task t : all) {
+                names.add(t.getName());
+            }
+            assertEquals(writers * perWriter, all.size());
+            assertEquals(writers * perWriter, names.size());
+
+            // Each writer marks its own share of positions; a reader must never see done tasks come back
+            stress(writers, w -> {
+                for (int n = w + 1; n <= shared.size(); n += writers) {
+                    shared.markOneBased(n);
+                }
+            }, shared, snapshot -> (int) snapshot.stream().filter(Task::isDone).count());
+
+            for (Task t : shared.asList()) {
+                assertTrue(t.isDone());
+            }
+            assertEquals(perWriter, shared.find("w3 task").size());
+        }
+    }
+
+    @Test
+    public void concurrent_snapshotsAndQueryResultsDoNotChange() throws WowoException {
+        TaskList shared = new TaskList(TaskList.Backing.TREE, true);
+        for (int i = 1; i <= 6; i++) {
+            shared.add(new Todo("task " + i));
+        }
+        List<Task> before = shared.asList();
+        // No change since, so nothing is copied
+        assertSame(before, shared.asList());
+        List<Task> found = shared.find("task");
+        List<Task> byName = shared.sortedByName();
+
+        shared.markAllOneBased(new int[] {1, 2, 3}, true);
+        shared.deleteAllOneBased(new int[] {2, 5});
+        shared.deleteOneBased(1);
+
+        for (List<Task> old : List.of(before, found, byName)) {
+            assertEquals(6, old.size());
+            assertFalse(old.stream().anyMatch(Task::isDone));
+        }
+        List<Task> after = shared.asList();
+        assertEquals(List.of("[T] [X] task 3", "[T] [ ] task 4", "[T] [ ] task 6"),
+                after.stream().map(Task::toString).toList());
+        shared.add(new Todo("task 7"));
+        assertEquals(3, after.size());
+        assertEquals(4, shared.asList().size());
+    }
+
+    /** Runs the writers while two readers check that a snapshot measure never goes down. */
+    private static void stress(int writers, Writer writer, TaskList shared,
+            ToIntFunction<List<Task>> measure) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(writers + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int id = w;
+                writes.add(pool.submit(() -> {
+                    start.await();
+                    writer.write(id);
+                    return null;
+                }));
+            }
+            List<Future<?>> reads = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                reads.add(pool.submit(() -> {
+                    start.await();
+                    int last = 0;
+                    while (!done.get()) {
+                        List<Task> snapshot = shared.asList();
+                        int now = measure.applyAsInt(snapshot);
+                        assertFalse(now < last, "snapshot went back from " + last + " to " + now);
+                        assertEquals(now, measure.applyAsInt(snapshot));
+                        last = now;
+                        shared.find("task");
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : writes) {
+                f.get();
+            }
+            done.set(true);
+            for (Future<?> f : reads) {
+                f.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private interface Writer {
+        void write(int id) throws WowoException;
+    }
 }
@@ -0,0 +1,78 @@
+package wowo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TenantsTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void leastRecentlyUsed_flushedAndReloaded() throws WowoException {
+        Tenants lists = new Tenants(dir, 2);
+        lists.execute("home", "todo water plants");
+        lists.execute("work", "todo write report");
+        lists.execute("home", "list");
+        lists.execute("chores", "todo sweep floor");
+
+        // work was used least recently, so it made room for chores
+        assertEquals(1, lists.evictions());
+        assertEquals(2, lists.residentCount());
+        assertEquals(1, new Storage(dir.resolve("work.txt"), true).load().size());
+
+        assertTrue(lists.execute("work", "list").contains("write report"));
+        assertEquals(1, lists.hits());
+        assertEquals(4, lists.misses());
+        lists.close();
+
+        assertEquals("T|0|water plants", new Storage(dir.resolve("home.txt"), true).load().get(0).serialize());
+    }
+
+    @Test
+    public void queries_runAlongsideChanges() throws Exception {
+        Tenants lists = new Tenants(dir, 2);
+        int adds = 2000;
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        AtomicBoolean done = new AtomicBoolean();
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                readers.add(pool.submit(() -> {
+                    int last = 0;
+                    while (!done.get()) {
+                        String reply = lists.execute("home", "find chore");
+                        int found = reply.startsWith("No matching") ? 0 : reply.split("\n").length - 1;
+                        assertFalse(found < last, "find went back from " + last + " to " + found);
+                        last = found;
+                        assertTrue(lists.execute("home", "due before 2030-01-01").startsWith("No matching"));
+                    }
+                    return null;
+                }));
+            }
+            for (int i = 0; i < adds; i++) {
+                lists.execute("home", "todo chore " + i);
+            }
+            done.set(true);
+            for (Future<?> f : readers) {
+                f.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(adds + 1, lists.execute("home", "find chore").split("\n").length);
+        lists.close();
+        assertEquals(adds, new Storage(dir.resolve("home.txt"), true).load().size());
+    }
+}
@@ -0,0 +1,107 @@
+package wowo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WowoTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void close_savesEditsStillInTheGroupWindow() throws WowoException {
+        Path file = dir.resolve("wowo.txt");
+        Wowo bot = new Wowo(new Storage(file, true), null);
+        bot.loadOnStartup();
+        for (int i = 0; i < 5; i++) {
+            bot.getResponse("todo chore " + i);
+        }
+        // What the GUI does when the window closes
+        assertNull(bot.close());
+
+        List<Task> loaded = new Storage(file, true).load();
+        assertEquals(5, loaded.size());
+        assertEquals("T|0|chore 4", loaded.get(4).serialize());
+    }
+
+    @Test
+    public void bye_flushesButKeepsTheGuiUsable() throws WowoException {
+        Path file = dir.resolve("wowo.txt");
+        Wowo bot = new Wowo(new Storage(file, true), null);
+        bot.loadOnStartup();
+        bot.getResponse("todo one");
+        bot.getResponse("bye");
+        assertEquals(1, new Storage(file, true).load().size());
+
+        assertTrue(bot.getResponse("todo two").startsWith("Added"));
+        bot.close();
+        assertEquals(2, new Storage(file, true).load().size());
+    }
+
+    @Test
+    public void closed_refusesCommands() throws WowoException {
+        Path file = dir.resolve("wowo.txt");
+        Wowo bot = new Wowo(new Storage(file, true), null);
+        bot.loadOnStartup();
+        bot.close();
+
+        assertTrue(bot.getResponse("todo late").contains("closed"));
+        assertEquals(0, new Storage(file, true).load().size());
+    }
+
+    @Test
+    public void list_showsEveryTaskUnlessLimited() throws WowoException {
+        Wowo bot = new Wowo(new Storage(dir.resolve("wowo.txt"), true), null);
+        bot.loadOnStartup();
+        for (int i = 1; i <= 120; i++) {
+            bot.getResponse("todo chore " + i);
+        }
+
+        String all = bot.getResponse("list");
+        assertTrue(all.endsWith("120. [T] [ ] chore 120"), all);
+        assertFalse(all.contains("Page "));
+        assertTrue(bot.getResponse("list 2").contains("only 1 page"));
+
+        String second = bot.getResponse("list 2 --limit 50");
+        assertTrue(second.startsWith("Here are your tasks:\n51. [T] [ ] chore 51"), second);
+        assertTrue(second.contains("Page 2 of 3"), second);
+        bot.close();
+    }
+
+    @Test
+    public void checkpointArg_onlyNonNegativeWholeNumbers() {
+        assertEquals(0, Wowo.checkpointArg("0"));
+        assertEquals(250, Wowo.checkpointArg("250"));
+        assertEquals(-1, Wowo.checkpointArg("abc"));
+        assertEquals(-1, Wowo.checkpointArg("-5"));
+        assertEquals(-1, Wowo.checkpointArg("99999999999"));
+    }
+
+    @Test
+    public void run_savesEverythingWhenInputEndsWithoutBye() throws WowoException {
+        Path file = dir.resolve("wowo.txt");
+        InputStream stdin = System.in;
+        Wowo bot;
+        try {
+            System.setIn(new ByteArrayInputStream("todo a\ntodo b\ntodo c\n".getBytes(StandardCharsets.UTF_8)));
+            bot = new Wowo(new Storage(file, true), null);
+        } finally {
+            System.setIn(stdin);
+        }
+        bot.loadOnStartup();
+        bot.run();
+
+        assertEquals(3, new Storage(file, true).load().size());
+        assertTrue(bot.getResponse("todo d").contains("closed"));
+    }
+}